@@ -0,0 +1,49 @@
+package krios.interpreter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// The whole front end, scanning through optimizing, run on one core and split
+// across the common fork-join pool. Neither engine caches, so every call compiles.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FrontEndBenchmark {
+
+    private static final LoxEngine SEQUENTIAL = new LoxEngine(Backend.INTERPRETER, 0, false);
+    private static final LoxEngine PARALLEL = new LoxEngine(Backend.INTERPRETER, 0, true);
+
+    @Param({"2000", "20000"})
+    private int functions;
+
+    private String source;
+
+    @Setup
+    public void setup() {
+        source = Programs.generate(functions);
+    }
+
+    @Benchmark
+    public CompiledScript sequential() {
+        return SEQUENTIAL.compileUncached(source, Programs.REPORTER);
+    }
+
+    @Benchmark
+    public CompiledScript parallel() {
+        return PARALLEL.compileUncached(source, Programs.REPORTER);
+    }
+}
@@ -0,0 +1,40 @@
+package krios.interpreter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InterpreterBenchmark {
+
+    @Param({"fib", "loops", "strings", "closures", "fields"})
+    private String program;
+
+    private List<Stmt> statements;
+
+    @Setup
+    public void setup() {
+        statements = Programs.compile(Programs.get(program));
+    }
+
+    @Benchmark
+    public Interpreter interpret() {
+        // A fresh interpreter per op, so globals from the previous run don't leak in
+        Interpreter interpreter = new Interpreter(Programs.SYMBOLS, Programs.REPORTER);
+        interpreter.interpret(statements);
+        return interpreter;
+    }
+}
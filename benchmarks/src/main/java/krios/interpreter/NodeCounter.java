@@ -0,0 +1,143 @@
+package krios.interpreter;
+
+import java.util.List;
+
+public class NodeCounter implements Expr.Visitor<Integer>, Stmt.Visitor<Integer> {
+
+    public int count(List<Stmt> statements) {
+        int count = 0;
+
+        for (Stmt statement : statements) {
+            count += statement.accept(this);
+        }
+
+        return count;
+    }
+
+    @Override
+    public Integer visitBinaryExpr(Expr.Binary expr) {
+        return 1 + count(expr.getLeft()) + count(expr.getRight());
+    }
+
+    @Override
+    public Integer visitCallExpr(Expr.Call expr) {
+        int count = 1 + count(expr.getCallee());
+
+        for (Expr argument : expr.getArguments()) {
+            count += count(argument);
+        }
+
+        return count;
+    }
+
+    @Override
+    public Integer visitGroupingExpr(Expr.Grouping expr) {
+        return 1 + count(expr.getExpression());
+    }
+
+    @Override
+    public Integer visitLiteralExpr(Expr.Literal expr) {
+        return 1;
+    }
+
+    @Override
+    public Integer visitUnaryExpr(Expr.Unary expr) {
+        return 1 + count(expr.getRight());
+    }
+
+    @Override
+    public Integer visitVariableExpr(Expr.Variable expr) {
+        return 1;
+    }
+
+    @Override
+    public Integer visitAssignExpr(Expr.Assign expr) {
+        return 1 + count(expr.getValue());
+    }
+
+    @Override
+    public Integer visitLogicalExpr(Expr.Logical expr) {
+        return 1 + count(expr.getLeft()) + count(expr.getRight());
+    }
+
+    @Override
+    public Integer visitGetExpr(Expr.Get expr) {
+        return 1 + count(expr.getObject());
+    }
+
+    @Override
+    public Integer visitSetExpr(Expr.Set expr) {
+        return 1 + count(expr.getObject()) + count(expr.getValue());
+    }
+
+    @Override
+    public Integer visitThisExpr(Expr.This expr) {
+        return 1;
+    }
+
+    @Override
+    public Integer visitSuperExpr(Expr.Super expr) {
+        return 1;
+    }
+
+    @Override
+    public Integer visitExpressionStmt(Stmt.Expression stmt) {
+        return 1 + count(stmt.getExpression());
+    }
+
+    @Override
+    public Integer visitPrintStmt(Stmt.Print stmt) {
+        return 1 + count(stmt.getExpression());
+    }
+
+    @Override
+    public Integer visitReturnStmt(Stmt.Return stmt) {
+        return 1 + (stmt.getValue() == null ? 0 : count(stmt.getValue()));
+    }
+
+    @Override
+    public Integer visitVarStmt(Stmt.Var stmt) {
+        return 1 + (stmt.getInitializer() == null ? 0 : count(stmt.getInitializer()));
+    }
+
+    @Override
+    public Integer visitBlockStmt(Stmt.Block stmt) {
+        return 1 + count(stmt.getStatements());
+    }
+
+    @Override
+    public Integer visitIfStmt(Stmt.If stmt) {
+        int count = 1 + count(stmt.getCondition()) + stmt.getThenBranch().accept(this);
+
+        if (stmt.getElseBranch() != null) {
+            count += stmt.getElseBranch().accept(this);
+        }
+
+        return count;
+    }
+
+    @Override
+    public Integer visitWhileStmt(Stmt.While stmt) {
+        return 1 + count(stmt.getCondition()) + stmt.getBody().accept(this);
+    }
+
+    @Override
+    public Integer visitFunctionStmt(Stmt.Function stmt) {
+        return 1 + count(stmt.getBody());
+    }
+
+    @Override
+    public Integer visitClassStmt(Stmt.Class stmt) {
+        int count = 1;
+
+        for (Stmt.Function method : stmt.getMethods()) {
+            count += visitFunctionStmt(method);
+        }
+
+        return count;
+    }
+
+    private int count(Expr expr) {
+        return expr.accept(this);
+    }
+}
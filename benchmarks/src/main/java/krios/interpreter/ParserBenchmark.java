@@ -0,0 +1,65 @@
+package krios.interpreter;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+
+    @Param({"100", "2000"})
+    private int functions;
+
+    private String source;
+    private List<Token> tokens;
+    private int nodeCount;
+
+    @Setup
+    public void setup() {
+        source = Programs.generate(functions);
+        tokens = new Scanner(source, Programs.SYMBOLS, Programs.REPORTER).scanTokens();
+        nodeCount = new NodeCounter().count(new Parser(tokens, Programs.REPORTER).parse());
+    }
+
+    @Benchmark
+    public List<Stmt> parse(Nodes nodes) {
+        List<Stmt> statements = new Parser(tokens, Programs.REPORTER).parse();
+        nodes.nodes += nodeCount;
+        return statements;
+    }
+
+    // Scanner and parser together, with tokens streamed instead of collected in a list
+    @Benchmark
+    public List<Stmt> scanAndParse(Nodes nodes) {
+        List<Stmt> statements = new Parser(new Scanner(source, Programs.SYMBOLS, Programs.REPORTER), Programs.REPORTER).parse();
+        nodes.nodes += nodeCount;
+        return statements;
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Nodes {
+
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package krios.interpreter;
+
+import java.util.List;
+
+public final class Programs {
+
+    public static final ErrorReporter REPORTER = new ConsoleErrorReporter();
+    public static final LoxEngine ENGINE = new LoxEngine();
+    public static final SymbolTable SYMBOLS = ENGINE.getSymbols();
+
+    public static final String FIB = """
+            fun fib(n) {
+                if (n < 2) return n;
+                return fib(n - 1) + fib(n - 2);
+            }
+            var result = fib(20);
+            """;
+
+    public static final String NESTED_LOOPS = """
+            var sum = 0;
+            for (var i = 0; i < 300; i = i + 1) {
+                for (var j = 0; j < 300; j = j + 1) {
+                    sum = sum + i * j - (i + j) / 2;
+                }
+            }
+            """;
+
+    public static final String STRING_CONCATENATION = """
+            var text = "";
+            for (var i = 0; i < 2000; i = i + 1) {
+                text = text + "x";
+                if (text == "never") text = "";
+            }
+            """;
+
+    public static final String CLOSURES = """
+            fun makeCounter() {
+                var count = 0;
+                fun increment() {
+                    count = count + 1;
+                    return count;
+                }
+                return increment;
+            }
+            fun apply(f, times) {
+                var last = nil;
+                for (var i = 0; i < times; i = i + 1) last = f();
+                return last;
+            }
+            var total = 0;
+            for (var i = 0; i < 200; i = i + 1) {
+                total = total + apply(makeCounter(), 100);
+            }
+            """;
+
+    // Field reads and writes in a hot method, on instances of two shapes
+    public static final String FIELDS = """
+            class Vector {
+                init(x, y) {
+                    this.x = x;
+                    this.y = y;
+                }
+                add(other) {
+                    this.x = this.x + other.x;
+                    this.y = this.y + other.y;
+                }
+            }
+            var sum = Vector(0, 0);
+            var step = Vector(1, 2);
+            step.label = "step";
+            for (var i = 0; i < 20000; i = i + 1) {
+                sum.add(step);
+            }
+            """;
+
+    private Programs() {
+    }
+
+    public static String get(String name) {
+        return switch (name) {
+            case "fib" -> FIB;
+            case "loops" -> NESTED_LOOPS;
+            case "strings" -> STRING_CONCATENATION;
+            case "closures" -> CLOSURES;
+            case "fields" -> FIELDS;
+            default -> throw new IllegalArgumentException("Unknown program " + name);
+        };
+    }
+
+    public static String generate(int functions) {
+        StringBuilder source = new StringBuilder();
+
+        for (int i = 0; i < functions; i++) {
+            source.append("""
+                    // generated function %1$d
+                    fun function%1$d(a, b) {
+                        var text = "value " + "%1$d";
+                        var total = 0;
+                        for (var i = 0; i < a; i = i + 1) {
+                            if (i >= b and !(i == 3.5) or false) {
+                                total = total + i * 2 - b / 4;
+                            } else {
+                                total = -total;
+                            }
+                        }
+                        while (total > 100) total = total - 100;
+                        return total;
+                    }
+                    print function%1$d(10, nil != true);
+                    """.formatted(i));
+        }
+
+        return source.toString();
+    }
+
+    // Keywords and names that share prefixes with them, a dozen per line
+    public static String identifiers(int lines) {
+        StringBuilder source = new StringBuilder();
+
+        for (int i = 0; i < lines; i++) {
+            source.append("var fun function return returned if iffy and android or order\n");
+            source.append("while whilst this thistle true truthy print printer nil nilly class\n");
+            source.append("counter").append(i % 50).append(" total index value result left right\n");
+        }
+
+        return source.toString();
+    }
+
+    public static List<Stmt> compile(String source) {
+        return ENGINE.compile(source, REPORTER, SYMBOLS).getStatements();
+    }
+}
@@ -0,0 +1,62 @@
+package krios.interpreter;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScannerBenchmark {
+
+    @Param({"100", "2000"})
+    private int functions;
+
+    private String source;
+    private String identifiers;
+
+    @Setup
+    public void setup() {
+        source = Programs.generate(functions);
+        identifiers = Programs.identifiers(functions * 100);
+    }
+
+    @Benchmark
+    public List<Token> scanTokens(Tokens tokens) {
+        List<Token> scanned = new Scanner(source, Programs.SYMBOLS, Programs.REPORTER).scanTokens();
+        tokens.tokens += scanned.size();
+        return scanned;
+    }
+
+    @Benchmark
+    public List<Token> scanIdentifiers(Tokens tokens) {
+        List<Token> scanned = new Scanner(identifiers, Programs.SYMBOLS, Programs.REPORTER).scanTokens();
+        tokens.tokens += scanned.size();
+        return scanned;
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Tokens {
+
+        public long tokens;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            tokens = 0;
+        }
+    }
+}
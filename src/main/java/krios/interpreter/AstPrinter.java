@@ -1,12 +1,23 @@
 package krios.interpreter;
 
-public class AstPrinter implements Expr.Visitor<String> {
+import java.util.ArrayList;
+import java.util.List;
+
+public class AstPrinter implements Expr.Visitor<String>, Stmt.Visitor<String> {
 
     @Override
     public String visitBinaryExpr(Expr.Binary expr) {
         return parenthesize(expr.getOperator().getLexeme(), expr.getLeft(), expr.getRight());
     }
 
+    @Override
+    public String visitCallExpr(Expr.Call expr) {
+        List<Expr> exprs = new ArrayList<>();
+        exprs.add(expr.getCallee());
+        exprs.addAll(expr.getArguments());
+        return parenthesize("call", exprs.toArray(new Expr[0]));
+    }
+
     @Override
     public String visitGroupingExpr(Expr.Grouping expr) {
         return parenthesize("group", expr.getExpression());
@@ -25,10 +36,140 @@ public class AstPrinter implements Expr.Visitor<String> {
         return parenthesize(expr.getOperator().getLexeme(), expr.getRight());
     }
 
+    @Override
+    public String visitVariableExpr(Expr.Variable expr) {
+        return expr.getName().getLexeme();
+    }
+
+    @Override
+    public String visitAssignExpr(Expr.Assign expr) {
+        return parenthesize("= " + expr.getName().getLexeme(), expr.getValue());
+    }
+
+    @Override
+    public String visitLogicalExpr(Expr.Logical expr) {
+        return parenthesize(expr.getOperator().getLexeme(), expr.getLeft(), expr.getRight());
+    }
+
+    @Override
+    public String visitGetExpr(Expr.Get expr) {
+        return parenthesize(". " + expr.getName().getLexeme(), expr.getObject());
+    }
+
+    @Override
+    public String visitSetExpr(Expr.Set expr) {
+        return parenthesize("= . " + expr.getName().getLexeme(), expr.getObject(), expr.getValue());
+    }
+
+    @Override
+    public String visitThisExpr(Expr.This expr) {
+        return "this";
+    }
+
+    @Override
+    public String visitSuperExpr(Expr.Super expr) {
+        return "(super " + expr.getMethod().getLexeme() + ")";
+    }
+
+    @Override
+    public String visitExpressionStmt(Stmt.Expression stmt) {
+        return parenthesize(";", stmt.getExpression());
+    }
+
+    @Override
+    public String visitPrintStmt(Stmt.Print stmt) {
+        return parenthesize("print", stmt.getExpression());
+    }
+
+    @Override
+    public String visitReturnStmt(Stmt.Return stmt) {
+        if (stmt.getValue() == null) {
+            return "(return)";
+        }
+        return parenthesize("return", stmt.getValue());
+    }
+
+    @Override
+    public String visitVarStmt(Stmt.Var stmt) {
+        if (stmt.getInitializer() == null) {
+            return "(var " + stmt.getName().getLexeme() + ")";
+        }
+        return parenthesize("var " + stmt.getName().getLexeme(), stmt.getInitializer());
+    }
+
+    @Override
+    public String visitBlockStmt(Stmt.Block stmt) {
+        StringBuilder builder = new StringBuilder("(block");
+
+        for (Stmt statement : stmt.getStatements()) {
+            builder.append(" ").append(print(statement));
+        }
+
+        return builder.append(")").toString();
+    }
+
+    @Override
+    public String visitIfStmt(Stmt.If stmt) {
+        StringBuilder builder = new StringBuilder("(if ");
+
+        builder.append(print(stmt.getCondition()));
+        builder.append(" ").append(print(stmt.getThenBranch()));
+        if (stmt.getElseBranch() != null) {
+            builder.append(" ").append(print(stmt.getElseBranch()));
+        }
+
+        return builder.append(")").toString();
+    }
+
+    @Override
+    public String visitWhileStmt(Stmt.While stmt) {
+        return "(while " + print(stmt.getCondition()) + " " + print(stmt.getBody()) + ")";
+    }
+
+    @Override
+    public String visitFunctionStmt(Stmt.Function stmt) {
+        StringBuilder builder = new StringBuilder("(fun ");
+
+        builder.append(stmt.getName().getLexeme()).append(" (");
+        for (int i = 0; i < stmt.getParams().size(); i++) {
+            if (i > 0) {
+                builder.append(" ");
+            }
+            builder.append(stmt.getParams().get(i).getLexeme());
+        }
+        builder.append(")");
+
+        for (Stmt statement : stmt.getBody()) {
+            builder.append(" ").append(print(statement));
+        }
+
+        return builder.append(")").toString();
+    }
+
+    @Override
+    public String visitClassStmt(Stmt.Class stmt) {
+        StringBuilder builder = new StringBuilder("(class ");
+
+        builder.append(stmt.getName().getLexeme());
+        if (stmt.getSuperclass() != null) {
+            builder.append(" < ").append(print(stmt.getSuperclass()));
+        }
+
+        for (Stmt.Function method : stmt.getMethods()) {
+            builder.append(" ").append(print(method));
+        }
+
+        return builder.append(")").toString();
+    }
+
     public String print(Expr expr) {
         return expr.accept(this);
     }
 
+    public String print(Stmt stmt) {
+        return stmt.accept(this);
+    }
+
     private String parenthesize(String name, Expr... exprs) {
         StringBuilder builder = new StringBuilder();
 
@@ -0,0 +1,7 @@
+package krios.interpreter;
+
+public enum Backend {
+    INTERPRETER,
+    VIRTUAL_MACHINE,
+    CLOSURE_COMPILER
+}
@@ -0,0 +1,631 @@
+package krios.interpreter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BytecodeCompiler implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
+
+    private static final int MAX_LOCALS = 256;
+    private static final int MAX_UPVALUES = 256;
+    private static final int MAX_CONSTANTS = 65536;
+    private static final int MAX_GLOBALS = 65536;
+    private static final int MAX_CACHES = 65536;
+    private static final int MAX_JUMP = 65535;
+
+    private final ErrorReporter reporter;
+    private FunctionState current;
+    private int line = 1;
+
+    public BytecodeCompiler(ErrorReporter reporter) {
+        this.reporter = reporter;
+    }
+
+    public VmFunction compile(List<Stmt> statements) {
+        current = new FunctionState(null, new VmFunction(null), FunctionType.SCRIPT);
+
+        for (Stmt statement : statements) {
+            compile(statement);
+        }
+
+        emitReturn();
+
+        return current.function;
+    }
+
+    @Override
+    public Void visitBinaryExpr(Expr.Binary expr) {
+        compile(expr.getLeft());
+        compile(expr.getRight());
+        line = expr.getOperator().getLine();
+
+        switch (expr.getOperator().getType()) {
+            case GREATER -> emitByte(OpCode.GREATER);
+            case GREATER_EQUAL -> emitByte(OpCode.GREATER_EQUAL);
+            case LESS -> emitByte(OpCode.LESS);
+            case LESS_EQUAL -> emitByte(OpCode.LESS_EQUAL);
+            case BANG_EQUAL -> emitByte(OpCode.NOT_EQUAL);
+            case EQUAL_EQUAL -> emitByte(OpCode.EQUAL);
+            case MINUS -> emitByte(OpCode.SUBTRACT);
+            case SLASH -> emitByte(OpCode.DIVIDE);
+            case STAR -> emitByte(OpCode.MULTIPLY);
+            case PLUS -> emitByte(OpCode.ADD);
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitCallExpr(Expr.Call expr) {
+        compile(expr.getCallee());
+
+        for (Expr argument : expr.getArguments()) {
+            compile(argument);
+        }
+
+        line = expr.getParen().getLine();
+        emitBytes(OpCode.CALL, expr.getArguments().size());
+        return null;
+    }
+
+    @Override
+    public Void visitGroupingExpr(Expr.Grouping expr) {
+        compile(expr.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visitLiteralExpr(Expr.Literal expr) {
+        Object value = expr.getValue();
+
+        if (value == null) {
+            emitByte(OpCode.NIL);
+        } else if (value.equals(true)) {
+            emitByte(OpCode.TRUE);
+        } else if (value.equals(false)) {
+            emitByte(OpCode.FALSE);
+        } else {
+            emitConstant(OpCode.CONSTANT, value);
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitUnaryExpr(Expr.Unary expr) {
+        compile(expr.getRight());
+        line = expr.getOperator().getLine();
+
+        switch (expr.getOperator().getType()) {
+            case MINUS -> emitByte(OpCode.NEGATE);
+            case BANG -> emitByte(OpCode.NOT);
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitVariableExpr(Expr.Variable expr) {
+        line = expr.getName().getLine();
+        emitVariable(expr.getName(), OpCode.GET_LOCAL, OpCode.GET_UPVALUE, OpCode.GET_GLOBAL);
+        return null;
+    }
+
+    @Override
+    public Void visitAssignExpr(Expr.Assign expr) {
+        compile(expr.getValue());
+        line = expr.getName().getLine();
+        emitVariable(expr.getName(), OpCode.SET_LOCAL, OpCode.SET_UPVALUE, OpCode.SET_GLOBAL);
+        return null;
+    }
+
+    @Override
+    public Void visitLogicalExpr(Expr.Logical expr) {
+        compile(expr.getLeft());
+        line = expr.getOperator().getLine();
+
+        if (expr.getOperator().getType() == TokenType.OR) {
+            int elseJump = emitJump(OpCode.JUMP_IF_FALSE);
+            int endJump = emitJump(OpCode.JUMP);
+
+            patchJump(elseJump);
+            emitByte(OpCode.POP);
+
+            compile(expr.getRight());
+            patchJump(endJump);
+        } else {
+            int endJump = emitJump(OpCode.JUMP_IF_FALSE);
+
+            emitByte(OpCode.POP);
+            compile(expr.getRight());
+
+            patchJump(endJump);
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitGetExpr(Expr.Get expr) {
+        compile(expr.getObject());
+        line = expr.getName().getLine();
+        emitProperty(OpCode.GET_PROPERTY, expr.getName());
+        return null;
+    }
+
+    @Override
+    public Void visitSetExpr(Expr.Set expr) {
+        compile(expr.getObject());
+        compile(expr.getValue());
+        line = expr.getName().getLine();
+        emitProperty(OpCode.SET_PROPERTY, expr.getName());
+        return null;
+    }
+
+    @Override
+    public Void visitThisExpr(Expr.This expr) {
+        line = expr.getKeyword().getLine();
+        emitVariable(SymbolTable.THIS, expr.getKeyword(), OpCode.GET_LOCAL, OpCode.GET_UPVALUE, OpCode.GET_GLOBAL);
+        return null;
+    }
+
+    @Override
+    public Void visitSuperExpr(Expr.Super expr) {
+        line = expr.getKeyword().getLine();
+        emitVariable(SymbolTable.THIS, expr.getKeyword(), OpCode.GET_LOCAL, OpCode.GET_UPVALUE, OpCode.GET_GLOBAL);
+        emitVariable(SymbolTable.SUPER, expr.getKeyword(), OpCode.GET_LOCAL, OpCode.GET_UPVALUE, OpCode.GET_GLOBAL);
+        emitSymbol(OpCode.GET_SUPER, expr.getMethod());
+        return null;
+    }
+
+    @Override
+    public Void visitExpressionStmt(Stmt.Expression stmt) {
+        compile(stmt.getExpression());
+        emitByte(OpCode.POP);
+        return null;
+    }
+
+    @Override
+    public Void visitPrintStmt(Stmt.Print stmt) {
+        compile(stmt.getExpression());
+        emitByte(OpCode.PRINT);
+        return null;
+    }
+
+    @Override
+    public Void visitReturnStmt(Stmt.Return stmt) {
+        line = stmt.getKeyword().getLine();
+
+        if (stmt.getValue() == null) {
+            emitReturn();
+            return null;
+        }
+
+        compile(stmt.getValue());
+        emitByte(OpCode.RETURN);
+        return null;
+    }
+
+    @Override
+    public Void visitVarStmt(Stmt.Var stmt) {
+        line = stmt.getName().getLine();
+
+        if (current.scopeDepth > 0) {
+            addLocal(stmt.getName());
+        }
+
+        if (stmt.getInitializer() == null) {
+            emitByte(OpCode.NIL);
+        } else {
+            compile(stmt.getInitializer());
+        }
+
+        defineVariable(stmt.getName());
+        return null;
+    }
+
+    @Override
+    public Void visitBlockStmt(Stmt.Block stmt) {
+        beginScope();
+
+        for (Stmt statement : stmt.getStatements()) {
+            compile(statement);
+        }
+
+        endScope();
+        return null;
+    }
+
+    @Override
+    public Void visitIfStmt(Stmt.If stmt) {
+        compile(stmt.getCondition());
+
+        int thenJump = emitJump(OpCode.JUMP_IF_FALSE);
+        emitByte(OpCode.POP);
+        compile(stmt.getThenBranch());
+
+        int elseJump = emitJump(OpCode.JUMP);
+
+        patchJump(thenJump);
+        emitByte(OpCode.POP);
+
+        if (stmt.getElseBranch() != null) {
+            compile(stmt.getElseBranch());
+        }
+
+        patchJump(elseJump);
+        return null;
+    }
+
+    @Override
+    public Void visitWhileStmt(Stmt.While stmt) {
+        int loopStart = currentChunk().getCount();
+
+        compile(stmt.getCondition());
+
+        int exitJump = emitJump(OpCode.JUMP_IF_FALSE);
+        emitByte(OpCode.POP);
+        compile(stmt.getBody());
+        emitLoop(loopStart);
+
+        patchJump(exitJump);
+        emitByte(OpCode.POP);
+        return null;
+    }
+
+    @Override
+    public Void visitFunctionStmt(Stmt.Function stmt) {
+        line = stmt.getName().getLine();
+
+        if (current.scopeDepth > 0) {
+            addLocal(stmt.getName());
+            // Functions may refer to themselves before the body is compiled
+            current.markInitialized();
+        }
+
+        function(stmt, FunctionType.FUNCTION);
+        defineVariable(stmt.getName());
+        return null;
+    }
+
+    // Leaves the class on the stack while its methods are attached, under the
+    // superclass, which stays in a scope of its own as the local 'super'
+    @Override
+    public Void visitClassStmt(Stmt.Class stmt) {
+        Token name = stmt.getName();
+        line = name.getLine();
+
+        if (current.scopeDepth > 0) {
+            addLocal(name);
+        }
+
+        int nameConstant = makeConstant(name.getLexeme());
+        int shapeConstant = makeConstant(stmt.getShape());
+        emitByte(OpCode.CLASS);
+        emitBytes(nameConstant >> 8, nameConstant);
+        emitBytes(shapeConstant >> 8, shapeConstant);
+        defineVariable(name);
+
+        Expr.Variable superclass = stmt.getSuperclass();
+
+        if (superclass != null) {
+            compile(superclass);
+            beginScope();
+            addLocal(SymbolTable.SUPER, superclass.getName());
+            current.markInitialized();
+
+            emitVariable(name.getSymbol(), name, OpCode.GET_LOCAL, OpCode.GET_UPVALUE, OpCode.GET_GLOBAL);
+            emitByte(OpCode.INHERIT);
+        }
+
+        emitVariable(name.getSymbol(), name, OpCode.GET_LOCAL, OpCode.GET_UPVALUE, OpCode.GET_GLOBAL);
+
+        for (Stmt.Function method : stmt.getMethods()) {
+            boolean isInitializer = method.getName().getLexeme().equals("init");
+
+            function(method, isInitializer ? FunctionType.INITIALIZER : FunctionType.METHOD);
+            line = method.getName().getLine();
+            emitSymbol(OpCode.METHOD, method.getName());
+            emitByte(isInitializer ? 1 : 0);
+        }
+
+        emitByte(OpCode.POP);
+
+        if (superclass != null) {
+            endScope();
+        }
+
+        return null;
+    }
+
+    private void function(Stmt.Function stmt, FunctionType type) {
+        FunctionState enclosing = current;
+        current = new FunctionState(enclosing, new VmFunction(stmt.getName().getLexeme()), type);
+        current.function.setArity(stmt.getParams().size());
+        beginScope();
+
+        for (Token param : stmt.getParams()) {
+            addLocal(param);
+            current.markInitialized();
+        }
+
+        for (Stmt statement : stmt.getBody()) {
+            compile(statement);
+        }
+
+        emitReturn();
+
+        FunctionState compiled = current;
+        compiled.function.setUpvalueCount(compiled.upvalues.size());
+        current = enclosing;
+
+        emitConstant(OpCode.CLOSURE, compiled.function);
+        for (Upvalue upvalue : compiled.upvalues) {
+            emitBytes(upvalue.isLocal ? 1 : 0, upvalue.index);
+        }
+    }
+
+    private void compile(Stmt statement) {
+        statement.accept(this);
+    }
+
+    private void compile(Expr expr) {
+        expr.accept(this);
+    }
+
+    private void emitVariable(Token name, byte localOp, byte upvalueOp, byte globalOp) {
+        emitVariable(name.getSymbol(), name, localOp, upvalueOp, globalOp);
+    }
+
+    private void emitVariable(int symbol, Token name, byte localOp, byte upvalueOp, byte globalOp) {
+        int local = resolveLocal(current, symbol);
+        if (local >= 0) {
+            emitBytes(localOp, local);
+            return;
+        }
+
+        int upvalue = resolveUpvalue(current, symbol, name);
+        if (upvalue >= 0) {
+            emitBytes(upvalueOp, upvalue);
+            return;
+        }
+
+        emitSymbol(globalOp, name);
+    }
+
+    private void defineVariable(Token name) {
+        if (current.scopeDepth > 0) {
+            current.markInitialized();
+            return;
+        }
+
+        emitSymbol(OpCode.DEFINE_GLOBAL, name);
+    }
+
+    private void addLocal(Token name) {
+        addLocal(name.getSymbol(), name);
+    }
+
+    private void addLocal(int symbol, Token name) {
+        if (current.locals.size() == MAX_LOCALS) {
+            reporter.error(name, "Too many local variables in function");
+            return;
+        }
+
+        current.locals.add(new Local(symbol, -1));
+    }
+
+    private int resolveLocal(FunctionState state, int symbol) {
+        for (int i = state.locals.size() - 1; i >= 0; i--) {
+            Local local = state.locals.get(i);
+
+            if (local.symbol == symbol && local.depth != -1) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private int resolveUpvalue(FunctionState state, int symbol, Token name) {
+        if (state.enclosing == null) {
+            return -1;
+        }
+
+        int local = resolveLocal(state.enclosing, symbol);
+        if (local >= 0) {
+            state.enclosing.locals.get(local).captured = true;
+            return addUpvalue(state, local, true, name);
+        }
+
+        int upvalue = resolveUpvalue(state.enclosing, symbol, name);
+        if (upvalue >= 0) {
+            return addUpvalue(state, upvalue, false, name);
+        }
+
+        return -1;
+    }
+
+    private int addUpvalue(FunctionState state, int index, boolean isLocal, Token name) {
+        for (int i = 0; i < state.upvalues.size(); i++) {
+            Upvalue upvalue = state.upvalues.get(i);
+
+            if (upvalue.index == index && upvalue.isLocal == isLocal) {
+                return i;
+            }
+        }
+
+        if (state.upvalues.size() == MAX_UPVALUES) {
+            reporter.error(name, "Too many closure variables in function");
+            return 0;
+        }
+
+        state.upvalues.add(new Upvalue(index, isLocal));
+        return state.upvalues.size() - 1;
+    }
+
+    private void beginScope() {
+        current.scopeDepth++;
+    }
+
+    private void endScope() {
+        current.scopeDepth--;
+
+        List<Local> locals = current.locals;
+        while (!locals.isEmpty() && locals.get(locals.size() - 1).depth > current.scopeDepth) {
+            if (locals.get(locals.size() - 1).captured) {
+                emitByte(OpCode.CLOSE_UPVALUE);
+            } else {
+                emitByte(OpCode.POP);
+            }
+            locals.remove(locals.size() - 1);
+        }
+    }
+
+    private Chunk currentChunk() {
+        return current.function.getChunk();
+    }
+
+    private void emitByte(int value) {
+        currentChunk().write(value, line);
+    }
+
+    private void emitBytes(int first, int second) {
+        emitByte(first);
+        emitByte(second);
+    }
+
+    private void emitConstant(byte opCode, Object value) {
+        int index = makeConstant(value);
+
+        emitByte(opCode);
+        emitBytes(index >> 8, index);
+    }
+
+    private int makeConstant(Object value) {
+        int index = currentChunk().addConstant(value);
+
+        if (index >= MAX_CONSTANTS) {
+            reporter.error(line, "Too many constants in one chunk");
+            return 0;
+        }
+
+        return index;
+    }
+
+    // Globals and properties are addressed by symbol, which for globals
+    // indexes the VM's globals array directly
+    private void emitSymbol(byte opCode, Token name) {
+        int symbol = name.getSymbol();
+
+        if (symbol >= MAX_GLOBALS) {
+            reporter.error(name, "Too many global variable names");
+            return;
+        }
+
+        emitByte(opCode);
+        emitBytes(symbol >> 8, symbol);
+    }
+
+    private void emitProperty(byte opCode, Token name) {
+        int cache = currentChunk().addCache();
+
+        if (cache >= MAX_CACHES) {
+            reporter.error(name, "Too many property accesses in one chunk");
+            return;
+        }
+
+        emitSymbol(opCode, name);
+        emitBytes(cache >> 8, cache);
+    }
+
+    // Initializers return the instance, from slot zero, whenever they return
+    private void emitReturn() {
+        if (current.type == FunctionType.INITIALIZER) {
+            emitBytes(OpCode.GET_LOCAL, 0);
+        } else {
+            emitByte(OpCode.NIL);
+        }
+        emitByte(OpCode.RETURN);
+    }
+
+    private int emitJump(byte opCode) {
+        emitByte(opCode);
+        emitBytes(0xff, 0xff);
+        return currentChunk().getCount() - 2;
+    }
+
+    private void patchJump(int offset) {
+        int jump = currentChunk().getCount() - offset - 2;
+
+        if (jump > MAX_JUMP) {
+            reporter.error(line, "Too much code to jump over");
+        }
+
+        currentChunk().patch(offset, jump >> 8);
+        currentChunk().patch(offset + 1, jump);
+    }
+
+    private void emitLoop(int loopStart) {
+        emitByte(OpCode.LOOP);
+
+        int offset = currentChunk().getCount() - loopStart + 2;
+        if (offset > MAX_JUMP) {
+            reporter.error(line, "Loop body too large");
+        }
+
+        emitBytes(offset >> 8, offset);
+    }
+
+    private static class FunctionState {
+
+        private final FunctionState enclosing;
+        private final VmFunction function;
+        private final List<Local> locals = new ArrayList<>();
+        private final FunctionType type;
+        private final List<Upvalue> upvalues = new ArrayList<>();
+        private int scopeDepth = 0;
+
+        FunctionState(FunctionState enclosing, VmFunction function, FunctionType type) {
+            this.enclosing = enclosing;
+            this.function = function;
+            this.type = type;
+            // Slot zero holds the closure being called, or the receiver for methods
+            boolean isMethod = type == FunctionType.METHOD || type == FunctionType.INITIALIZER;
+            locals.add(new Local(isMethod ? SymbolTable.THIS : -1, 0));
+        }
+
+        void markInitialized() {
+            locals.get(locals.size() - 1).depth = scopeDepth;
+        }
+    }
+
+    private enum FunctionType {
+        SCRIPT,
+        FUNCTION,
+        METHOD,
+        INITIALIZER
+    }
+
+    private static class Local {
+
+        private final int symbol;
+        private int depth;
+        private boolean captured;
+
+        Local(int symbol, int depth) {
+            this.symbol = symbol;
+            this.depth = depth;
+        }
+    }
+
+    private static class Upvalue {
+
+        private final int index;
+        private final boolean isLocal;
+
+        Upvalue(int index, boolean isLocal) {
+            this.index = index;
+            this.isLocal = isLocal;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package krios.interpreter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class Chunk {
+
+    private byte[] code = new byte[64];
+    private int[] lines = new int[64];
+    private int count = 0;
+    private final List<Object> constants = new ArrayList<>();
+    private final Map<Object, Integer> constantIndexes = new HashMap<>();
+    private InlineCache[] caches = new InlineCache[0];
+
+    public void write(int value, int line) {
+        if (count == code.length) {
+            code = Arrays.copyOf(code, count * 2);
+            lines = Arrays.copyOf(lines, count * 2);
+        }
+
+        code[count] = (byte) value;
+        lines[count] = line;
+        count++;
+    }
+
+    public void patch(int offset, int value) {
+        code[offset] = (byte) value;
+    }
+
+    public int addConstant(Object value) {
+        Integer index = constantIndexes.get(value);
+
+        if (index != null) {
+            return index;
+        }
+
+        constants.add(value);
+        constantIndexes.put(value, constants.size() - 1);
+        return constants.size() - 1;
+    }
+
+    // Every property access instruction has a cache of its own
+    public int addCache() {
+        caches = Arrays.copyOf(caches, caches.length + 1);
+        caches[caches.length - 1] = new InlineCache();
+        return caches.length - 1;
+    }
+
+    public InlineCache getCache(int index) {
+        return caches[index];
+    }
+
+    public byte[] getCode() {
+        return code;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public Object getConstant(int index) {
+        return constants.get(index);
+    }
+
+    public int getLine(int offset) {
+        return lines[offset];
+    }
+}
@@ -0,0 +1,631 @@
+package krios.interpreter;
+
+import java.util.List;
+
+public class ClosureCompiler implements Expr.Visitor<ClosureCompiler.ExprNode>, Stmt.Visitor<ClosureCompiler.StmtNode> {
+
+    private final Environment globals;
+    private final Memoizer memoizer;
+
+    public ClosureCompiler(Environment globals) {
+        this(globals, new Memoizer(0));
+    }
+
+    public ClosureCompiler(Environment globals, Memoizer memoizer) {
+        this.globals = globals;
+        this.memoizer = memoizer;
+    }
+
+    public StmtNode[] compile(List<Stmt> statements) {
+        StmtNode[] nodes = new StmtNode[statements.size()];
+
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = compile(statements.get(i));
+        }
+
+        return nodes;
+    }
+
+    @Override
+    public ExprNode visitBinaryExpr(Expr.Binary expr) {
+        ExprNode left = compile(expr.getLeft());
+        ExprNode right = compile(expr.getRight());
+        Token operator = expr.getOperator();
+
+        return switch (operator.getType()) {
+            case GREATER -> environment -> {
+                Object l = left.evaluate(environment);
+                Object r = right.evaluate(environment);
+                checkNumberOperands(operator, l, r);
+                return (double) l > (double) r;
+            };
+            case GREATER_EQUAL -> environment -> {
+                Object l = left.evaluate(environment);
+                Object r = right.evaluate(environment);
+                checkNumberOperands(operator, l, r);
+                return (double) l >= (double) r;
+            };
+            case LESS -> environment -> {
+                Object l = left.evaluate(environment);
+                Object r = right.evaluate(environment);
+                checkNumberOperands(operator, l, r);
+                return (double) l < (double) r;
+            };
+            case LESS_EQUAL -> environment -> {
+                Object l = left.evaluate(environment);
+                Object r = right.evaluate(environment);
+                checkNumberOperands(operator, l, r);
+                return (double) l <= (double) r;
+            };
+            case BANG_EQUAL -> environment -> !Values.isEqual(left.evaluate(environment), right.evaluate(environment));
+            case EQUAL_EQUAL -> environment -> Values.isEqual(left.evaluate(environment), right.evaluate(environment));
+            case MINUS -> environment -> {
+                Object l = left.evaluate(environment);
+                Object r = right.evaluate(environment);
+                checkNumberOperands(operator, l, r);
+                return (double) l - (double) r;
+            };
+            case SLASH -> environment -> {
+                Object l = left.evaluate(environment);
+                Object r = right.evaluate(environment);
+                checkNumberOperands(operator, l, r);
+                return (double) l / (double) r;
+            };
+            case STAR -> environment -> {
+                Object l = left.evaluate(environment);
+                Object r = right.evaluate(environment);
+                checkNumberOperands(operator, l, r);
+                return (double) l * (double) r;
+            };
+            case PLUS -> environment -> {
+                Object l = left.evaluate(environment);
+                Object r = right.evaluate(environment);
+
+                if (l instanceof Double && r instanceof Double) {
+                    return (double) l + (double) r;
+                }
+                if (l instanceof String && r instanceof String) {
+                    return (String) l + (String) r;
+                }
+                throw new RuntimeError(operator, "Operands must be numbers or strings");
+            };
+            default -> throw new IllegalStateException("Unexpected binary operator " + operator.getType());
+        };
+    }
+
+    @Override
+    public ExprNode visitCallExpr(Expr.Call expr) {
+        ExprNode callee = compile(expr.getCallee());
+        Token paren = expr.getParen();
+        ExprNode[] arguments = compileArguments(expr);
+
+        // Small argument counts are unrolled so that arguments go straight
+        // into the callee's frame without a loop or an intermediate array
+        switch (arguments.length) {
+            case 0 -> {
+                return environment -> {
+                    LoxCallable function = checkCall(expr, callee.evaluate(environment), paren, 0);
+
+                    if (function instanceof CompiledFunction compiled) {
+                        return invoke(compiled, compiled.newFrame(), paren);
+                    }
+                    return callNative(function, paren, LoxCallable.NO_ARGUMENTS);
+                };
+            }
+            case 1 -> {
+                ExprNode first = arguments[0];
+
+                return environment -> {
+                    LoxCallable function = checkCall(expr, callee.evaluate(environment), paren, 1);
+
+                    if (function instanceof CompiledFunction compiled) {
+                        Environment frame = compiled.newFrame();
+                        frame.define(0, first.evaluate(environment));
+                        return invoke(compiled, frame, paren);
+                    }
+                    return callNative(function, paren, new Object[]{first.evaluate(environment)});
+                };
+            }
+            case 2 -> {
+                ExprNode first = arguments[0];
+                ExprNode second = arguments[1];
+
+                return environment -> {
+                    LoxCallable function = checkCall(expr, callee.evaluate(environment), paren, 2);
+
+                    if (function instanceof CompiledFunction compiled) {
+                        Environment frame = compiled.newFrame();
+                        frame.define(0, first.evaluate(environment));
+                        frame.define(1, second.evaluate(environment));
+                        return invoke(compiled, frame, paren);
+                    }
+                    return callNative(function, paren, new Object[]{
+                            first.evaluate(environment), second.evaluate(environment)
+                    });
+                };
+            }
+            case 3 -> {
+                ExprNode first = arguments[0];
+                ExprNode second = arguments[1];
+                ExprNode third = arguments[2];
+
+                return environment -> {
+                    LoxCallable function = checkCall(expr, callee.evaluate(environment), paren, 3);
+
+                    if (function instanceof CompiledFunction compiled) {
+                        Environment frame = compiled.newFrame();
+                        frame.define(0, first.evaluate(environment));
+                        frame.define(1, second.evaluate(environment));
+                        frame.define(2, third.evaluate(environment));
+                        return invoke(compiled, frame, paren);
+                    }
+                    return callNative(function, paren, new Object[]{
+                            first.evaluate(environment), second.evaluate(environment), third.evaluate(environment)
+                    });
+                };
+            }
+            case 4 -> {
+                ExprNode first = arguments[0];
+                ExprNode second = arguments[1];
+                ExprNode third = arguments[2];
+                ExprNode fourth = arguments[3];
+
+                return environment -> {
+                    LoxCallable function = checkCall(expr, callee.evaluate(environment), paren, 4);
+
+                    if (function instanceof CompiledFunction compiled) {
+                        Environment frame = compiled.newFrame();
+                        frame.define(0, first.evaluate(environment));
+                        frame.define(1, second.evaluate(environment));
+                        frame.define(2, third.evaluate(environment));
+                        frame.define(3, fourth.evaluate(environment));
+                        return invoke(compiled, frame, paren);
+                    }
+                    return callNative(function, paren, new Object[]{
+                            first.evaluate(environment), second.evaluate(environment),
+                            third.evaluate(environment), fourth.evaluate(environment)
+                    });
+                };
+            }
+        }
+
+        return environment -> {
+            LoxCallable function = checkCall(expr, callee.evaluate(environment), paren, arguments.length);
+
+            if (function instanceof CompiledFunction compiled) {
+                Environment frame = compiled.newFrame();
+                for (int i = 0; i < arguments.length; i++) {
+                    frame.define(i, arguments[i].evaluate(environment));
+                }
+                return invoke(compiled, frame, paren);
+            }
+
+            Object[] values = new Object[arguments.length];
+            for (int i = 0; i < arguments.length; i++) {
+                values[i] = arguments[i].evaluate(environment);
+            }
+            return callNative(function, paren, values);
+        };
+    }
+
+    @Override
+    public ExprNode visitGroupingExpr(Expr.Grouping expr) {
+        return compile(expr.getExpression());
+    }
+
+    @Override
+    public ExprNode visitLiteralExpr(Expr.Literal expr) {
+        Object value = expr.getValue();
+        return environment -> value;
+    }
+
+    @Override
+    public ExprNode visitUnaryExpr(Expr.Unary expr) {
+        ExprNode right = compile(expr.getRight());
+        Token operator = expr.getOperator();
+
+        return switch (operator.getType()) {
+            case MINUS -> environment -> {
+                Object value = right.evaluate(environment);
+                checkNumberOperand(operator, value);
+                return -(double) value;
+            };
+            case BANG -> environment -> !Values.isTruthy(right.evaluate(environment));
+            default -> throw new IllegalStateException("Unexpected unary operator " + operator.getType());
+        };
+    }
+
+    @Override
+    public ExprNode visitVariableExpr(Expr.Variable expr) {
+        Token name = expr.getName();
+        int depth = expr.getDepth();
+        int slot = expr.getSlot();
+
+        if (depth < 0) {
+            return environment -> globals.get(name);
+        }
+        return environment -> environment.getAt(depth, slot);
+    }
+
+    @Override
+    public ExprNode visitAssignExpr(Expr.Assign expr) {
+        ExprNode value = compile(expr.getValue());
+        Token name = expr.getName();
+        int depth = expr.getDepth();
+        int slot = expr.getSlot();
+
+        if (depth < 0) {
+            return environment -> {
+                Object result = value.evaluate(environment);
+                globals.assign(name, result);
+                return result;
+            };
+        }
+        return environment -> {
+            Object result = value.evaluate(environment);
+            environment.assignAt(depth, slot, result);
+            return result;
+        };
+    }
+
+    @Override
+    public ExprNode visitLogicalExpr(Expr.Logical expr) {
+        ExprNode left = compile(expr.getLeft());
+        ExprNode right = compile(expr.getRight());
+
+        if (expr.getOperator().getType() == TokenType.OR) {
+            return environment -> {
+                Object value = left.evaluate(environment);
+                return Values.isTruthy(value) ? value : right.evaluate(environment);
+            };
+        }
+        return environment -> {
+            Object value = left.evaluate(environment);
+            return !Values.isTruthy(value) ? value : right.evaluate(environment);
+        };
+    }
+
+    @Override
+    public ExprNode visitGetExpr(Expr.Get expr) {
+        ExprNode object = compile(expr.getObject());
+        Token name = expr.getName();
+        InlineCache cache = expr.getCache();
+
+        return environment -> {
+            if (object.evaluate(environment) instanceof LoxInstance instance) {
+                return instance.get(name, cache);
+            }
+            throw new RuntimeError(name, "Only instances have properties");
+        };
+    }
+
+    @Override
+    public ExprNode visitSetExpr(Expr.Set expr) {
+        ExprNode object = compile(expr.getObject());
+        ExprNode value = compile(expr.getValue());
+        Token name = expr.getName();
+        InlineCache cache = expr.getCache();
+
+        return environment -> {
+            if (!(object.evaluate(environment) instanceof LoxInstance instance)) {
+                throw new RuntimeError(name, "Only instances have fields");
+            }
+
+            Object result = value.evaluate(environment);
+            instance.set(name, result, cache);
+            return result;
+        };
+    }
+
+    @Override
+    public ExprNode visitThisExpr(Expr.This expr) {
+        int depth = expr.getDepth();
+        return environment -> environment.getAt(depth, 0);
+    }
+
+    @Override
+    public ExprNode visitSuperExpr(Expr.Super expr) {
+        Token name = expr.getMethod();
+        int depth = expr.getDepth();
+
+        return environment -> {
+            LoxClass superclass = (LoxClass) environment.getAt(depth, 0);
+
+            if (superclass.findMethod(name.getSymbol()) instanceof LoxMethod method) {
+                return method.bind((LoxInstance) environment.getAt(depth - 1, 0));
+            }
+            throw new RuntimeError(name, "Undefined property '" + name.getLexeme() + "'");
+        };
+    }
+
+    @Override
+    public StmtNode visitExpressionStmt(Stmt.Expression stmt) {
+        ExprNode expression = compile(stmt.getExpression());
+        return environment -> {
+            expression.evaluate(environment);
+            return Interpreter.NORMAL;
+        };
+    }
+
+    @Override
+    public StmtNode visitPrintStmt(Stmt.Print stmt) {
+        ExprNode expression = compile(stmt.getExpression());
+        return environment -> {
+            System.out.println(Values.stringify(expression.evaluate(environment)));
+            return Interpreter.NORMAL;
+        };
+    }
+
+    @Override
+    public StmtNode visitReturnStmt(Stmt.Return stmt) {
+        if (stmt.getValue() == null) {
+            return environment -> null;
+        }
+
+        if (stmt.getValue() instanceof Expr.Call call) {
+            return compileTailCall(call);
+        }
+
+        ExprNode value = compile(stmt.getValue());
+        return value::evaluate;
+    }
+
+    @Override
+    public StmtNode visitVarStmt(Stmt.Var stmt) {
+        ExprNode initializer = stmt.getInitializer() == null ? environment -> null : compile(stmt.getInitializer());
+        Token name = stmt.getName();
+        int slot = stmt.getSlot();
+
+        if (slot < 0) {
+            return environment -> {
+                globals.define(name, initializer.evaluate(environment));
+                return Interpreter.NORMAL;
+            };
+        }
+        return environment -> {
+            environment.define(slot, initializer.evaluate(environment));
+            return Interpreter.NORMAL;
+        };
+    }
+
+    @Override
+    public StmtNode visitBlockStmt(Stmt.Block stmt) {
+        StmtNode[] statements = compile(stmt.getStatements());
+        int slotCount = stmt.getSlotCount();
+
+        if (slotCount == 0) {
+            return environment -> executeAll(statements, environment);
+        }
+        return environment -> executeAll(statements, new Environment(environment, slotCount));
+    }
+
+    @Override
+    public StmtNode visitIfStmt(Stmt.If stmt) {
+        ExprNode condition = compile(stmt.getCondition());
+        StmtNode thenBranch = compile(stmt.getThenBranch());
+
+        if (stmt.getElseBranch() == null) {
+            return environment -> {
+                if (Values.isTruthy(condition.evaluate(environment))) {
+                    return thenBranch.execute(environment);
+                }
+                return Interpreter.NORMAL;
+            };
+        }
+
+        StmtNode elseBranch = compile(stmt.getElseBranch());
+        return environment -> {
+            if (Values.isTruthy(condition.evaluate(environment))) {
+                return thenBranch.execute(environment);
+            }
+            return elseBranch.execute(environment);
+        };
+    }
+
+    @Override
+    public StmtNode visitWhileStmt(Stmt.While stmt) {
+        ExprNode condition = compile(stmt.getCondition());
+        StmtNode body = compile(stmt.getBody());
+
+        return environment -> {
+            while (Values.isTruthy(condition.evaluate(environment))) {
+                ScriptInterruptedException.check();
+                Object completion = body.execute(environment);
+
+                if (completion != Interpreter.NORMAL) {
+                    return completion;
+                }
+            }
+            return Interpreter.NORMAL;
+        };
+    }
+
+    @Override
+    public StmtNode visitFunctionStmt(Stmt.Function stmt) {
+        StmtNode[] body = compile(stmt.getBody());
+        Token name = stmt.getName();
+        int slot = stmt.getSlot();
+
+        if (slot < 0) {
+            return environment -> {
+                globals.define(name, new CompiledFunction(stmt, body, environment, false, memoizer.newCache(stmt, globals)));
+                return Interpreter.NORMAL;
+            };
+        }
+        return environment -> {
+            environment.define(slot, new CompiledFunction(stmt, body, environment, false, memoizer.newCache(stmt, globals)));
+            return Interpreter.NORMAL;
+        };
+    }
+
+    @Override
+    public StmtNode visitClassStmt(Stmt.Class stmt) {
+        Token name = stmt.getName();
+        Shape shape = stmt.getShape();
+        int slot = stmt.getSlot();
+        ExprNode superclass = stmt.getSuperclass() == null ? null : compile(stmt.getSuperclass());
+        Token superclassName = stmt.getSuperclass() == null ? null : stmt.getSuperclass().getName();
+
+        List<Stmt.Function> methods = stmt.getMethods();
+        StmtNode[][] bodies = new StmtNode[methods.size()][];
+        for (int i = 0; i < bodies.length; i++) {
+            bodies[i] = compile(methods.get(i).getBody());
+        }
+
+        return environment -> {
+            LoxClass loxClass = new LoxClass(name.getLexeme(), shape);
+            Environment enclosing = environment;
+
+            if (superclass != null) {
+                if (!(superclass.evaluate(environment) instanceof LoxClass superclassValue)) {
+                    throw new RuntimeError(superclassName, "Superclass must be a class");
+                }
+
+                loxClass.inherit(superclassValue);
+                enclosing = new Environment(environment, 1);
+                enclosing.define(0, superclassValue);
+            }
+
+            for (int i = 0; i < bodies.length; i++) {
+                Stmt.Function method = methods.get(i);
+                boolean isInitializer = method.getName().getLexeme().equals("init");
+                CompiledFunction function = new CompiledFunction(method, bodies[i], enclosing, isInitializer);
+
+                loxClass.defineMethod(method.getName().getSymbol(), function, isInitializer);
+            }
+
+            if (slot < 0) {
+                globals.define(name, loxClass);
+            } else {
+                environment.define(slot, loxClass);
+            }
+            return Interpreter.NORMAL;
+        };
+    }
+
+    static Object executeAll(StmtNode[] statements, Environment environment) {
+        for (StmtNode statement : statements) {
+            Object completion = statement.execute(environment);
+
+            if (completion != Interpreter.NORMAL) {
+                return completion;
+            }
+        }
+
+        return Interpreter.NORMAL;
+    }
+
+    private ExprNode compile(Expr expr) {
+        return expr.accept(this);
+    }
+
+    private StmtNode compile(Stmt stmt) {
+        return stmt.accept(this);
+    }
+
+    // A call in tail position fills the callee's frame and hands it to the
+    // trampoline in CompiledFunction.invoke rather than running it
+    private StmtNode compileTailCall(Expr.Call expr) {
+        ExprNode callee = compile(expr.getCallee());
+        Token paren = expr.getParen();
+        ExprNode[] arguments = compileArguments(expr);
+
+        return environment -> {
+            LoxCallable function = checkCall(expr, callee.evaluate(environment), paren, arguments.length);
+
+            if (function instanceof CompiledFunction compiled) {
+                Environment frame = compiled.newFrame();
+                for (int i = 0; i < arguments.length; i++) {
+                    frame.define(i, arguments[i].evaluate(environment));
+                }
+                return new TailCall(compiled, frame);
+            }
+
+            Object[] values = new Object[arguments.length];
+            for (int i = 0; i < arguments.length; i++) {
+                values[i] = arguments[i].evaluate(environment);
+            }
+            return callNative(function, paren, values);
+        };
+    }
+
+    // Turns running out of Java stack into a Lox error, like Interpreter.invoke
+    private static Object invoke(CompiledFunction function, Environment frame, Token paren) {
+        try {
+            return function.invoke(frame);
+        }
+        catch (StackOverflowError error) {
+            throw new RuntimeError(paren, "Stack overflow");
+        }
+    }
+
+    private ExprNode[] compileArguments(Expr.Call expr) {
+        ExprNode[] arguments = new ExprNode[expr.getArguments().size()];
+
+        for (int i = 0; i < arguments.length; i++) {
+            arguments[i] = compile(expr.getArguments().get(i));
+        }
+
+        return arguments;
+    }
+
+    // A site that called a function of this declaration before has already
+    // checked that it is callable with these arguments
+    private static LoxCallable checkCall(Expr.Call site, Object callee, Token paren, int argumentCount) {
+        if (callee instanceof CompiledFunction compiled && compiled.getDeclaration() == site.getCachedCallee()) {
+            return compiled;
+        }
+
+        if (!(callee instanceof LoxCallable function)) {
+            throw new RuntimeError(paren, "Can only call functions and classes");
+        }
+
+        if (argumentCount != function.arity()) {
+            throw new RuntimeError(paren,
+                    "Expected " + function.arity() + " arguments, but got " + argumentCount
+            );
+        }
+
+        if (function instanceof CompiledFunction compiled) {
+            site.cacheCallee(compiled.getDeclaration());
+        }
+
+        return function;
+    }
+
+    // Anything callable other than a compiled function: natives and classes
+    private static Object callNative(LoxCallable function, Token paren, Object[] arguments) {
+        if (function instanceof NativeFunction nativeFunction) {
+            return nativeFunction.call(arguments);
+        }
+        if (function instanceof LoxClass) {
+            return function.call(null, arguments);
+        }
+        throw new RuntimeError(paren, "Can only call functions and classes");
+    }
+
+    private static void checkNumberOperands(Token operator, Object left, Object right) {
+        if (left instanceof Double && right instanceof Double) {
+            return;
+        }
+        throw new RuntimeError(operator, "Operands must be numbers");
+    }
+
+    private static void checkNumberOperand(Token operator, Object operand) {
+        if (operand instanceof Double) {
+            return;
+        }
+        throw new RuntimeError(operator, "Operand must be a number");
+    }
+
+    public interface ExprNode {
+
+        Object evaluate(Environment environment);
+    }
+
+    public interface StmtNode {
+
+        // Returns Interpreter.NORMAL, or the value of an executed return statement
+        Object execute(Environment environment);
+    }
+}
@@ -0,0 +1,35 @@
+package krios.interpreter;
+
+import java.util.List;
+
+public class ClosureInterpreter {
+
+    private final ErrorReporter reporter;
+    private final Environment globals;
+    private final ClosureCompiler compiler;
+
+    public ClosureInterpreter(SymbolTable symbols, ErrorReporter reporter) {
+        this(symbols, reporter, new Memoizer(0));
+    }
+
+    public ClosureInterpreter(SymbolTable symbols, ErrorReporter reporter, Memoizer memoizer) {
+        this.reporter = reporter;
+        this.globals = new Environment(symbols);
+        this.compiler = new ClosureCompiler(globals, memoizer);
+
+        for (NativeFunction function : NativeFunction.standardLibrary()) {
+            globals.define(function.getName(), function);
+        }
+    }
+
+    public void interpret(List<Stmt> statements) {
+        ClosureCompiler.StmtNode[] program = compiler.compile(statements);
+
+        try {
+            ClosureCompiler.executeAll(program, globals);
+        }
+        catch (RuntimeError error) {
+            reporter.runtimeError(error);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package krios.interpreter;
+
+public class CompiledFunction implements LoxMethod {
+
+    private final Stmt.Function declaration;
+    private final ClosureCompiler.StmtNode[] body;
+    private final Environment closure;
+    private final boolean isInitializer;
+    private final MemoCache memo;
+
+    public CompiledFunction(Stmt.Function declaration, ClosureCompiler.StmtNode[] body, Environment closure) {
+        this(declaration, body, closure, false);
+    }
+
+    public CompiledFunction(Stmt.Function declaration, ClosureCompiler.StmtNode[] body, Environment closure,
+                            boolean isInitializer) {
+        this(declaration, body, closure, isInitializer, null);
+    }
+
+    CompiledFunction(Stmt.Function declaration, ClosureCompiler.StmtNode[] body, Environment closure,
+                     boolean isInitializer, MemoCache memo) {
+        this.declaration = declaration;
+        this.body = body;
+        this.closure = closure;
+        this.isInitializer = isInitializer;
+        this.memo = memo;
+    }
+
+    public Stmt.Function getDeclaration() {
+        return declaration;
+    }
+
+    public Environment newFrame() {
+        return new Environment(closure, declaration.getSlotCount());
+    }
+
+    // Consults the memo and runs tail calls like LoxFunction.invoke
+    public Object invoke(Environment frame) {
+        if (memo == null) {
+            return execute(frame);
+        }
+
+        Object key = memo.keyOf(frame, arity());
+
+        if (key == MemoCache.UNCACHEABLE) {
+            return execute(frame);
+        }
+
+        Object result = memo.get(key);
+
+        if (result == MemoCache.MISSING) {
+            result = execute(frame);
+            memo.put(key, result);
+        }
+
+        return result;
+    }
+
+    private Object execute(Environment frame) {
+        CompiledFunction function = this;
+
+        while (true) {
+            ScriptInterruptedException.check();
+            Object completion = ClosureCompiler.executeAll(function.body, frame);
+
+            if (completion instanceof TailCall tailCall) {
+                function = (CompiledFunction) tailCall.getFunction();
+                frame = tailCall.getFrame();
+                continue;
+            }
+
+            if (function.isInitializer) {
+                return function.closure.getAt(0, 0);
+            }
+            if (completion == Interpreter.NORMAL) {
+                return null;
+            }
+            return completion;
+        }
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, Object[] arguments) {
+        Environment frame = newFrame();
+
+        for (int i = 0; i < arguments.length; i++) {
+            frame.define(i, arguments[i]);
+        }
+
+        return invoke(frame);
+    }
+
+    @Override
+    public CompiledFunction bind(LoxInstance instance) {
+        Environment environment = new Environment(closure, 1);
+        environment.define(0, instance);
+        return new CompiledFunction(declaration, body, environment, isInitializer);
+    }
+
+    @Override
+    public int arity() {
+        return declaration.getParams().size();
+    }
+
+    @Override
+    public String toString() {
+        return "<fn " + declaration.getName().getLexeme() + ">";
+    }
+}
@@ -0,0 +1,34 @@
+package krios.interpreter;
+
+import java.util.List;
+
+// The front end's output for one source, shared by every context that runs it.
+// Nodes only ever move between valid specializations, so concurrent runs may
+// race on them without changing results.
+class CompiledScript {
+
+    private final List<Stmt> statements;
+    private final VmFunction function;
+    private final SymbolTable symbols;
+
+    CompiledScript(List<Stmt> statements, VmFunction function, SymbolTable symbols) {
+        this.statements = statements;
+        this.function = function;
+        this.symbols = symbols;
+    }
+
+    List<Stmt> getStatements() {
+        return statements;
+    }
+
+    // Only compiled for engines using the virtual machine
+    VmFunction getFunction() {
+        return function;
+    }
+
+    // The table the script's identifiers were interned in, which only contexts
+    // using the same table can run it with
+    SymbolTable getSymbols() {
+        return symbols;
+    }
+}
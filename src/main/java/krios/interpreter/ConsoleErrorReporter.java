@@ -0,0 +1,31 @@
+package krios.interpreter;
+
+import java.io.PrintStream;
+
+public class ConsoleErrorReporter implements ErrorReporter {
+
+    private final PrintStream out;
+
+    public ConsoleErrorReporter() {
+        this(System.err);
+    }
+
+    public ConsoleErrorReporter(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void error(int line, String message) {
+        out.printf("[line: %s] Error: %s \n", line, message);
+    }
+
+    @Override
+    public void runtimeError(RuntimeError error) {
+        if (error.getLine() < 0) {
+            out.printf("%s \n", error.getMessage());
+            return;
+        }
+
+        out.printf("%s \n[line: %d]\n", error.getMessage(), error.getLine());
+    }
+}
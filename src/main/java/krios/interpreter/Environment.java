@@ -1,50 +1,106 @@
 package krios.interpreter;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 public class Environment {
 
+    private static final Object UNDEFINED = new Object();
+
     private final Environment enclosing;
-    private final Map<String, Object> values;
+    private final SymbolTable symbols;
+    private Object[] values;
+    private final Object[] slots;
+    // Counts global defines and assigns, and records for each global the count
+    // it was last written at, so memoized results can tell whether the globals
+    // they depend on have changed
+    private long version;
+    private long[] versions;
 
-    public Environment() {
+    // Globals are indexed by symbol, with UNDEFINED marking names never defined
+    public Environment(SymbolTable symbols) {
         this.enclosing = null;
-        this.values = new HashMap<>();
+        this.symbols = symbols;
+        this.values = new Object[0];
+        this.versions = new long[0];
+        this.slots = null;
     }
 
-    public Environment(Environment enclosing) {
+    public Environment(Environment enclosing, int size) {
         this.enclosing = enclosing;
-        this.values = new HashMap<>();
+        this.symbols = null;
+        this.values = null;
+        this.slots = new Object[size];
     }
 
     public void define(String name, Object value) {
-        values.put(name, value);
+        defineGlobal(symbols.intern(name), value);
+    }
+
+    public void define(Token name, Object value) {
+        defineGlobal(name.getSymbol(), value);
+    }
+
+    public void define(int slot, Object value) {
+        slots[slot] = value;
     }
 
     public Object get(Token name) {
-        if (values.containsKey(name.getLexeme())) {
-            return values.get(name.getLexeme());
-        }
+        int symbol = name.getSymbol();
 
-        if (enclosing != null) {
-            return enclosing.get(name);
+        if (symbol < values.length && values[symbol] != UNDEFINED) {
+            return values[symbol];
         }
 
         throw new RuntimeError(name, "Undefined variable '" + name.getLexeme() + "'");
     }
 
+    public Object getAt(int depth, int slot) {
+        return ancestor(depth).slots[slot];
+    }
+
     public void assign(Token name, Object value) {
-        if (values.containsKey(name.getLexeme())) {
-            values.put(name.getLexeme(), value);
-            return;
-        }
+        int symbol = name.getSymbol();
 
-        if (enclosing != null) {
-            enclosing.assign(name, value);
+        if (symbol < values.length && values[symbol] != UNDEFINED) {
+            values[symbol] = value;
+            versions[symbol] = ++version;
             return;
         }
 
         throw new RuntimeError(name, "Undefined variable '" + name.getLexeme() + "'");
     }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getVersion(int symbol) {
+        return symbol < versions.length ? versions[symbol] : 0;
+    }
+
+    public void assignAt(int depth, int slot, Object value) {
+        ancestor(depth).slots[slot] = value;
+    }
+
+    private void defineGlobal(int symbol, Object value) {
+        if (symbol >= values.length) {
+            int length = values.length;
+            values = Arrays.copyOf(values, Math.max(symbol + 1, values.length * 2));
+            Arrays.fill(values, length, values.length, UNDEFINED);
+            versions = Arrays.copyOf(versions, values.length);
+        }
+
+        values[symbol] = value;
+        versions[symbol] = ++version;
+    }
+
+    private Environment ancestor(int depth) {
+        Environment environment = this;
+
+        for (int i = 0; i < depth; i++) {
+            environment = environment.enclosing;
+        }
+
+        return environment;
+    }
 }
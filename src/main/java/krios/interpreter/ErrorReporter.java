@@ -0,0 +1,16 @@
+package krios.interpreter;
+
+public interface ErrorReporter {
+
+    void error(int line, String message);
+
+    void runtimeError(RuntimeError error);
+
+    default void error(Token token, String message) {
+        if (token.getType() == TokenType.EOF) {
+            error(token.getLine(), " at end " + message);
+        } else {
+            error(token.getLine(), " at '" + token.getLexeme() + "' " + message);
+        }
+    }
+}
@@ -21,6 +21,24 @@ abstract class Expr {
         T visitAssignExpr(Assign expr);
 
         T visitLogicalExpr(Logical expr);
+
+        T visitGetExpr(Get expr);
+
+        T visitSetExpr(Set expr);
+
+        T visitThisExpr(This expr);
+
+        T visitSuperExpr(Super expr);
+    }
+
+    // Operand types a node has observed so far. Nodes only ever move towards
+    // GENERIC, so a racy write from another thread can at worst cost a fast path
+    enum Specialization {
+        UNINITIALIZED,
+        NUMBER,
+        STRING,
+        BOOLEAN,
+        GENERIC
     }
 
     static class Binary extends Expr {
@@ -28,6 +46,7 @@ abstract class Expr {
         private final Expr left;
         private final Token operator;
         private final Expr right;
+        private Specialization specialization = Specialization.UNINITIALIZED;
 
         Binary(Expr left, Token operator, Expr right) {
             this.left = left;
@@ -51,6 +70,14 @@ abstract class Expr {
         public Expr getRight() {
             return right;
         }
+
+        public Specialization getSpecialization() {
+            return specialization;
+        }
+
+        void specialize(Specialization specialization) {
+            this.specialization = specialization;
+        }
     }
 
     static class Grouping extends Expr {
@@ -76,6 +103,7 @@ abstract class Expr {
         private final Expr callee;
         private final Token paren;
         private final List<Expr> arguments;
+        private Stmt.Function cachedCallee;
 
         Call(Expr callee, Token paren, List<Expr> arguments) {
             this.callee = callee;
@@ -99,6 +127,19 @@ abstract class Expr {
         public List<Expr> getArguments() {
             return arguments;
         }
+
+        // Declaration of the function this site last called, whose arity has been
+        // checked against the arguments. Keyed on the declaration rather than the
+        // function, so that closures and bound methods made from it all hit, and
+        // so a cached script doesn't keep another context's environments alive.
+        // Declarations are immutable, so a racy write can at worst cost a miss.
+        public Stmt.Function getCachedCallee() {
+            return cachedCallee;
+        }
+
+        void cacheCallee(Stmt.Function declaration) {
+            this.cachedCallee = declaration;
+        }
     }
 
     static class Literal extends Expr {
@@ -123,6 +164,7 @@ abstract class Expr {
 
         private final Token operator;
         private final Expr right;
+        private Specialization specialization = Specialization.UNINITIALIZED;
 
         Unary(Token operator, Expr right) {
             this.operator = operator;
@@ -141,11 +183,21 @@ abstract class Expr {
         public Expr getRight() {
             return right;
         }
+
+        public Specialization getSpecialization() {
+            return specialization;
+        }
+
+        void specialize(Specialization specialization) {
+            this.specialization = specialization;
+        }
     }
 
     static class Variable extends Expr {
 
         private final Token name;
+        private int depth = -1;
+        private int slot = -1;
 
         Variable(Token name) {
             this.name = name;
@@ -159,12 +211,27 @@ abstract class Expr {
         public Token getName() {
             return name;
         }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public int getSlot() {
+            return slot;
+        }
+
+        void resolve(int depth, int slot) {
+            this.depth = depth;
+            this.slot = slot;
+        }
     }
 
     static class Assign extends Expr {
 
         private final Token name;
         private final Expr value;
+        private int depth = -1;
+        private int slot = -1;
 
         Assign(Token name, Expr value) {
             this.name = name;
@@ -183,6 +250,19 @@ abstract class Expr {
         public Expr getValue() {
             return value;
         }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public int getSlot() {
+            return slot;
+        }
+
+        void resolve(int depth, int slot) {
+            this.depth = depth;
+            this.slot = slot;
+        }
     }
 
     static class Logical extends Expr {
@@ -190,6 +270,7 @@ abstract class Expr {
         private final Expr left;
         private final Token operator;
         private final Expr right;
+        private Specialization specialization = Specialization.UNINITIALIZED;
 
         Logical(Expr left, Token operator, Expr right) {
             this.left = left;
@@ -213,5 +294,139 @@ abstract class Expr {
         public Expr getRight() {
             return right;
         }
+
+        public Specialization getSpecialization() {
+            return specialization;
+        }
+
+        void specialize(Specialization specialization) {
+            this.specialization = specialization;
+        }
+    }
+
+    static class Get extends Expr {
+
+        private final Expr object;
+        private final Token name;
+        private final InlineCache cache = new InlineCache();
+
+        Get(Expr object, Token name) {
+            this.object = object;
+            this.name = name;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitGetExpr(this);
+        }
+
+        public Expr getObject() {
+            return object;
+        }
+
+        public Token getName() {
+            return name;
+        }
+
+        public InlineCache getCache() {
+            return cache;
+        }
+    }
+
+    static class Set extends Expr {
+
+        private final Expr object;
+        private final Token name;
+        private final Expr value;
+        private final InlineCache cache = new InlineCache();
+
+        Set(Expr object, Token name, Expr value) {
+            this.object = object;
+            this.name = name;
+            this.value = value;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitSetExpr(this);
+        }
+
+        public Expr getObject() {
+            return object;
+        }
+
+        public Token getName() {
+            return name;
+        }
+
+        public Expr getValue() {
+            return value;
+        }
+
+        public InlineCache getCache() {
+            return cache;
+        }
+    }
+
+    static class This extends Expr {
+
+        private final Token keyword;
+        private int depth = -1;
+
+        This(Token keyword) {
+            this.keyword = keyword;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitThisExpr(this);
+        }
+
+        public Token getKeyword() {
+            return keyword;
+        }
+
+        // The receiver is always in slot zero of the scope it is bound in
+        public int getDepth() {
+            return depth;
+        }
+
+        void resolve(int depth) {
+            this.depth = depth;
+        }
+    }
+
+    static class Super extends Expr {
+
+        private final Token keyword;
+        private final Token method;
+        private int depth = -1;
+
+        Super(Token keyword, Token method) {
+            this.keyword = keyword;
+            this.method = method;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitSuperExpr(this);
+        }
+
+        public Token getKeyword() {
+            return keyword;
+        }
+
+        public Token getMethod() {
+            return method;
+        }
+
+        // Depth of the superclass's scope; the receiver's is the one inside it
+        public int getDepth() {
+            return depth;
+        }
+
+        void resolve(int depth) {
+            this.depth = depth;
+        }
     }
 }
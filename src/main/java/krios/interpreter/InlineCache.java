@@ -0,0 +1,87 @@
+package krios.interpreter;
+
+// Remembers where a property access site found its field for the last few shapes
+// it has seen, so that repeated accesses skip the lookup in the shape. Sites that
+// see more than POLYMORPHIC_LIMIT shapes are megamorphic and stop caching.
+//
+// Sites are shared by every context running a compiled script. Entries are
+// immutable and the array holding them is filled before it is published through
+// a volatile field, so readers never see an empty slot and a racing update can
+// at worst lose an entry.
+public final class InlineCache {
+
+    static final int POLYMORPHIC_LIMIT = 4;
+
+    private static final Entry[] EMPTY = new Entry[0];
+
+    private volatile Entry[] entries = EMPTY;
+    private boolean megamorphic;
+
+    // Index of the field in instances of the shape, or -1 when they don't have it
+    public int fieldIndex(Shape shape, int symbol) {
+        Entry[] entries = this.entries;
+
+        for (Entry entry : entries) {
+            if (entry.shape == shape) {
+                return entry.index;
+            }
+        }
+
+        int index = shape.indexOf(symbol);
+        add(entries, new Entry(shape, index, shape));
+        return index;
+    }
+
+    // Stores a value into the field, adding it to the instance when it is new
+    public void store(LoxInstance instance, int symbol, Object value) {
+        Shape shape = instance.getShape();
+        Entry[] entries = this.entries;
+
+        for (Entry entry : entries) {
+            if (entry.shape == shape) {
+                instance.store(entry.index, entry.next, value);
+                return;
+            }
+        }
+
+        int index = shape.indexOf(symbol);
+        Shape next = shape;
+
+        if (index < 0) {
+            next = shape.withField(symbol);
+            index = shape.size();
+        }
+
+        add(entries, new Entry(shape, index, next));
+        instance.store(index, next, value);
+    }
+
+    public boolean isMegamorphic() {
+        return megamorphic;
+    }
+
+    private void add(Entry[] entries, Entry entry) {
+        if (entries.length == POLYMORPHIC_LIMIT) {
+            megamorphic = true;
+            return;
+        }
+
+        Entry[] added = new Entry[entries.length + 1];
+        System.arraycopy(entries, 0, added, 0, entries.length);
+        added[entries.length] = entry;
+        this.entries = added;
+    }
+
+    private static class Entry {
+
+        private final Shape shape;
+        private final int index;
+        private final Shape next;
+
+        Entry(Shape shape, int index, Shape next) {
+            this.shape = shape;
+            this.index = index;
+            this.next = next;
+        }
+    }
+}
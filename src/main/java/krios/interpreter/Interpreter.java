@@ -1,93 +1,82 @@
 package krios.interpreter;
 
-import java.util.ArrayList;
 import java.util.List;
 
-public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
+public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Object> {
 
-    private final Environment globals = new Environment();
-    private Environment environment = globals;
+    // Statements complete with NORMAL, or with the value of the return
+    // statement that ended them, which is passed up to the enclosing call
+    static final Object NORMAL = new Object();
 
-    public Interpreter() {
-        globals.define("clock", new LoxCallable() {
-            @Override
-            public Object call(Interpreter interpreter, List<Object> arguments) {
-                return (double) System.currentTimeMillis() / 1000.0;
-            }
+    private final ErrorReporter reporter;
+    private final Environment globals;
+    private final Memoizer memoizer;
+    private Environment environment;
+    private Token callSite;
 
-            @Override
-            public int arity() {
-                return 0;
-            }
+    public Interpreter(SymbolTable symbols, ErrorReporter reporter) {
+        this(symbols, reporter, new Memoizer(0));
+    }
 
-            @Override
-            public String toString() {
-                return "<native fn>";
-            }
-        });
+    public Interpreter(SymbolTable symbols, ErrorReporter reporter, Memoizer memoizer) {
+        this.reporter = reporter;
+        this.globals = new Environment(symbols);
+        this.environment = globals;
+        this.memoizer = memoizer;
+
+        for (NativeFunction function : NativeFunction.standardLibrary()) {
+            globals.define(function.getName(), function);
+        }
     }
 
     @Override
     public Object visitBinaryExpr(Expr.Binary expr) {
+        if (expr.getSpecialization() == Expr.Specialization.NUMBER) {
+            try {
+                if (isComparison(expr.getOperator())) {
+                    return compareNumbers(expr);
+                }
+                return Values.box(evaluateNumber(expr));
+            }
+            catch (UnexpectedValue unexpected) {
+                return unexpected.getValue();
+            }
+        }
+
         Object left = evaluate(expr.getLeft());
         Object right = evaluate(expr.getRight());
 
-        switch (expr.getOperator().getType()) {
-            case GREATER -> {
-                checkNumberOperands(expr.getOperator(), left, right);
-                return (double) left > (double) right;
-            }
-            case GREATER_EQUAL -> {
-                checkNumberOperands(expr.getOperator(), left, right);
-                return (double) left >= (double) right;
-            }
-            case LESS -> {
-                checkNumberOperands(expr.getOperator(), left, right);
-                return (double) left < (double) right;
-            }
-            case LESS_EQUAL -> {
-                checkNumberOperands(expr.getOperator(), left, right);
-                return (double) left <= (double) right;
-            }
-            case BANG_EQUAL -> {
-                return !isEqual(left, right);
-            }
-            case EQUAL_EQUAL -> {
-                return isEqual(left, right);
-            }
-            case MINUS -> {
-                checkNumberOperands(expr.getOperator(), left, right);
-                return (double) left - (double) right;
-            }
-            case SLASH -> {
-                checkNumberOperands(expr.getOperator(), left, right);
-                return (double) left / (double) right;
-            }
-            case STAR -> {
-                checkNumberOperands(expr.getOperator(), left, right);
-                return (double) left * (double) right;
-            }
-            case PLUS -> {
-                if (left instanceof Double && right instanceof Double) {
-                    return (double) left + (double) right;
-                }
+        switch (expr.getSpecialization()) {
+            case STRING -> {
                 if (left instanceof String && right instanceof String) {
-                    return (String) left + (String) right;
+                    return stringBinary(expr.getOperator(), (String) left, (String) right);
                 }
-                throw new RuntimeError(expr.getOperator(), "Operands must be numbers or strings");
+            }
+            case GENERIC -> {
+                return genericBinary(expr.getOperator(), left, right);
             }
         }
 
-        return null;
+        expr.specialize(specializeBinary(expr, left, right));
+        return genericBinary(expr.getOperator(), left, right);
     }
 
     @Override
     public Object visitCallExpr(Expr.Call expr) {
+        return call(expr, false);
+    }
+
+    // A call in tail position doesn't run a Lox function callee, it returns it
+    // as a TailCall for the trampoline in LoxFunction.invoke
+    private Object call(Expr.Call expr, boolean isTail) {
+        callSite = expr.getParen();
         Object callee = evaluate(expr.getCallee());
+        List<Expr> arguments = expr.getArguments();
 
-        List<Object> arguments = new ArrayList<>();
-        for (Expr argument : expr.getArguments()) {
-            arguments.add(evaluate(argument));
+        // A site that called a function of this declaration before has already
+        // checked that it is callable with these arguments
+        if (callee instanceof LoxFunction loxFunction && loxFunction.getDeclaration() == expr.getCachedCallee()) {
+            return invoke(loxFunction, expr, isTail);
         }
 
         if (!(callee instanceof LoxCallable)) {
@@ -102,7 +91,17 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
             );
         }
 
-        return function.call(this, arguments);
+        if (function instanceof LoxFunction loxFunction) {
+            expr.cacheCallee(loxFunction.getDeclaration());
+            return invoke(loxFunction, expr, isTail);
+        }
+
+        Object[] values = arguments.isEmpty() ? LoxCallable.NO_ARGUMENTS : new Object[arguments.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = evaluate(arguments.get(i));
+        }
+
+        return function.call(this, values);
     }
 
     @Override
@@ -119,41 +118,67 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     public Object visitUnaryExpr(Expr.Unary expr) {
         Object right = evaluate(expr.getRight());
 
-        switch (expr.getOperator().getType()) {
-            case MINUS -> {
-                checkNumberOperand(expr.getOperator(), right);
-                return -(double) right;
+        switch (expr.getSpecialization()) {
+            case NUMBER -> {
+                if (right instanceof Double) {
+                    return Values.box(-(double) right);
+                }
             }
-            case BANG -> {
-                return !isTruthy(right);
+            case BOOLEAN -> {
+                if (right instanceof Boolean) {
+                    return !(boolean) right;
+                }
+            }
+            case GENERIC -> {
+                return genericUnary(expr.getOperator(), right);
             }
         }
 
-        return null;
+        expr.specialize(specializeUnary(expr, right));
+        return genericUnary(expr.getOperator(), right);
     }
 
     @Override
     public Object visitVariableExpr(Expr.Variable expr) {
-        return environment.get(expr.getName());
+        if (expr.getDepth() < 0) {
+            return globals.get(expr.getName());
+        }
+        return environment.getAt(expr.getDepth(), expr.getSlot());
     }
 
     @Override
     public Object visitAssignExpr(Expr.Assign expr) {
         Object value = evaluate(expr.getValue());
-        environment.assign(expr.getName(), value);
+
+        if (expr.getDepth() < 0) {
+            globals.assign(expr.getName(), value);
+        } else {
+            environment.assignAt(expr.getDepth(), expr.getSlot(), value);
+        }
+
         return value;
     }
 
     @Override
     public Object visitLogicalExpr(Expr.Logical expr) {
         Object left = evaluate(expr.getLeft());
+        boolean truthy;
+
+        if (expr.getSpecialization() == Expr.Specialization.BOOLEAN && left instanceof Boolean) {
+            truthy = (boolean) left;
+        } else {
+            if (expr.getSpecialization() != Expr.Specialization.GENERIC) {
+                expr.specialize(specializeLogical(expr, left));
+            }
+            truthy = Values.isTruthy(left);
+        }
 
         if (expr.getOperator().getType() == TokenType.OR) {
-            if (isTruthy(left)) {
+            if (truthy) {
                 return left;
             }
         } else {
-            if (!isTruthy(left)) {
+            if (!truthy) {
                 return left;
             }
         }
@@ -162,116 +187,438 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     }
 
     @Override
-    public Void visitExpressionStmt(Stmt.Expression stmt) {
+    public Object visitGetExpr(Expr.Get expr) {
+        Object object = evaluate(expr.getObject());
+
+        if (object instanceof LoxInstance instance) {
+            return instance.get(expr.getName(), expr.getCache());
+        }
+
+        throw new RuntimeError(expr.getName(), "Only instances have properties");
+    }
+
+    @Override
+    public Object visitSetExpr(Expr.Set expr) {
+        Object object = evaluate(expr.getObject());
+
+        if (!(object instanceof LoxInstance instance)) {
+            throw new RuntimeError(expr.getName(), "Only instances have fields");
+        }
+
+        Object value = evaluate(expr.getValue());
+        instance.set(expr.getName(), value, expr.getCache());
+        return value;
+    }
+
+    @Override
+    public Object visitThisExpr(Expr.This expr) {
+        return environment.getAt(expr.getDepth(), 0);
+    }
+
+    @Override
+    public Object visitSuperExpr(Expr.Super expr) {
+        LoxClass superclass = (LoxClass) environment.getAt(expr.getDepth(), 0);
+        LoxInstance instance = (LoxInstance) environment.getAt(expr.getDepth() - 1, 0);
+        Token name = expr.getMethod();
+
+        if (superclass.findMethod(name.getSymbol()) instanceof LoxMethod method) {
+            return method.bind(instance);
+        }
+
+        throw new RuntimeError(name, "Undefined property '" + name.getLexeme() + "'");
+    }
+
+    @Override
+    public Object visitExpressionStmt(Stmt.Expression stmt) {
         evaluate(stmt.getExpression());
-        return null;
+        return NORMAL;
     }
 
     @Override
-    public Void visitPrintStmt(Stmt.Print stmt) {
+    public Object visitPrintStmt(Stmt.Print stmt) {
         Object value = evaluate(stmt.getExpression());
-        System.out.println(stringify(value));
-        return null;
+        System.out.println(Values.stringify(value));
+        return NORMAL;
     }
 
     @Override
-    public Void visitReturnStmt(Stmt.Return stmt) {
-        Object value = null;
+    public Object visitReturnStmt(Stmt.Return stmt) {
+        Expr value = stmt.getValue();
 
-        if (stmt.getValue() != null) {
-            value = evaluate(stmt.getValue());
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Expr.Call call) {
+            return call(call, true);
         }
 
-        throw new Return(value);
+        return evaluate(value);
     }
 
     @Override
-    public Void visitVarStmt(Stmt.Var stmt) {
+    public Object visitVarStmt(Stmt.Var stmt) {
         Object value = null;
 
         if (stmt.getInitializer() != null) {
             value = evaluate(stmt.getInitializer());
         }
 
-        environment.define(stmt.getName().getLexeme(), value);
-        return null;
+        define(stmt.getName(), stmt.getSlot(), value);
+        return NORMAL;
     }
 
     @Override
-    public Void visitBlockStmt(Stmt.Block stmt) {
-        executeBlock(stmt.getStatements(), new Environment(environment));
-        return null;
+    public Object visitBlockStmt(Stmt.Block stmt) {
+        if (stmt.getSlotCount() == 0) {
+            for (Stmt statement : stmt.getStatements()) {
+                Object completion = execute(statement);
+
+                if (completion != NORMAL) {
+                    return completion;
+                }
+            }
+            return NORMAL;
+        }
+
+        return executeBlock(stmt.getStatements(), new Environment(environment, stmt.getSlotCount()));
     }
 
     @Override
-    public Void visitIfStmt(Stmt.If stmt) {
-        if (isTruthy(evaluate(stmt.getCondition()))) {
-            execute(stmt.getThenBranch());
+    public Object visitIfStmt(Stmt.If stmt) {
+        if (Values.isTruthy(evaluate(stmt.getCondition()))) {
+            return execute(stmt.getThenBranch());
         } else if (stmt.getElseBranch() != null) {
-            execute(stmt.getElseBranch());
+            return execute(stmt.getElseBranch());
         }
-        return null;
+        return NORMAL;
     }
 
     @Override
-    public Void visitWhileStmt(Stmt.While stmt) {
-        while (isTruthy(evaluate(stmt.getCondition()))) {
-            execute(stmt.getBody());
+    public Object visitWhileStmt(Stmt.While stmt) {
+        while (Values.isTruthy(evaluate(stmt.getCondition()))) {
+            ScriptInterruptedException.check();
+            Object completion = execute(stmt.getBody());
+
+            if (completion != NORMAL) {
+                return completion;
+            }
         }
 
-        return null;
+        return NORMAL;
+    }
+
+    @Override
+    public Object visitFunctionStmt(Stmt.Function stmt) {
+        LoxFunction function = new LoxFunction(stmt, environment, false, memoizer.newCache(stmt, globals));
+
+        define(stmt.getName(), stmt.getSlot(), function);
+
+        return NORMAL;
     }
 
     @Override
-    public Void visitFunctionStmt(Stmt.Function stmt) {
-        LoxFunction function = new LoxFunction(stmt, environment);
+    public Object visitClassStmt(Stmt.Class stmt) {
+        LoxClass loxClass = new LoxClass(stmt.getName().getLexeme(), stmt.getShape());
+        Environment enclosing = environment;
 
-        environment.define(stmt.getName().getLexeme(), function);
+        if (stmt.getSuperclass() != null) {
+            if (!(evaluate(stmt.getSuperclass()) instanceof LoxClass superclass)) {
+                throw new RuntimeError(stmt.getSuperclass().getName(), "Superclass must be a class");
+            }
+
+            loxClass.inherit(superclass);
+            enclosing = new Environment(environment, 1);
+            enclosing.define(0, superclass);
+        }
+
+        for (Stmt.Function method : stmt.getMethods()) {
+            boolean isInitializer = method.getName().getLexeme().equals("init");
+            LoxFunction function = new LoxFunction(method, enclosing, isInitializer);
+
+            loxClass.defineMethod(method.getName().getSymbol(), function, isInitializer);
+        }
+
+        define(stmt.getName(), stmt.getSlot(), loxClass);
+        return NORMAL;
+    }
+
+    private Object invoke(LoxFunction function, Expr.Call expr, boolean isTail) {
+        List<Expr> arguments = expr.getArguments();
+        Environment frame = function.newFrame();
+
+        for (int i = 0; i < arguments.size(); i++) {
+            frame.define(i, evaluate(arguments.get(i)));
+        }
+
+        if (isTail) {
+            return new TailCall(function, frame);
+        }
+        return function.invoke(this, frame);
+    }
+
+    private Object genericBinary(Token operator, Object left, Object right) {
+        switch (operator.getType()) {
+            case GREATER -> {
+                checkNumberOperands(operator, left, right);
+                return (double) left > (double) right;
+            }
+            case GREATER_EQUAL -> {
+                checkNumberOperands(operator, left, right);
+                return (double) left >= (double) right;
+            }
+            case LESS -> {
+                checkNumberOperands(operator, left, right);
+                return (double) left < (double) right;
+            }
+            case LESS_EQUAL -> {
+                checkNumberOperands(operator, left, right);
+                return (double) left <= (double) right;
+            }
+            case BANG_EQUAL -> {
+                return !Values.isEqual(left, right);
+            }
+            case EQUAL_EQUAL -> {
+                return Values.isEqual(left, right);
+            }
+            case MINUS -> {
+                checkNumberOperands(operator, left, right);
+                return Values.box((double) left - (double) right);
+            }
+            case SLASH -> {
+                checkNumberOperands(operator, left, right);
+                return Values.box((double) left / (double) right);
+            }
+            case STAR -> {
+                checkNumberOperands(operator, left, right);
+                return Values.box((double) left * (double) right);
+            }
+            case PLUS -> {
+                if (left instanceof Double && right instanceof Double) {
+                    return Values.box((double) left + (double) right);
+                }
+                if (left instanceof String && right instanceof String) {
+                    return (String) left + (String) right;
+                }
+                throw new RuntimeError(operator, "Operands must be numbers or strings");
+            }
+        }
+
+        return null;
+    }
+
+    // Evaluates a subtree that has only produced doubles so far without boxing
+    // the intermediate results. A subtree that produces anything else throws
+    // UnexpectedValue with that value, and its parent finishes generically
+    private double evaluateNumber(Expr expr) {
+        if (expr instanceof Expr.Literal literal && literal.getValue() instanceof Double) {
+            return (double) literal.getValue();
+        }
+        if (expr instanceof Expr.Grouping grouping) {
+            return evaluateNumber(grouping.getExpression());
+        }
+        if (expr instanceof Expr.Unary unary && unary.getSpecialization() == Expr.Specialization.NUMBER) {
+            double right;
+
+            try {
+                right = evaluateNumber(unary.getRight());
+            }
+            catch (UnexpectedValue unexpected) {
+                unary.specialize(Expr.Specialization.GENERIC);
+                return expectNumber(genericUnary(unary.getOperator(), unexpected.getValue()));
+            }
+
+            return -right;
+        }
+        if (expr instanceof Expr.Binary binary && binary.getSpecialization() == Expr.Specialization.NUMBER
+                && !isComparison(binary.getOperator())) {
+            double left;
+            double right;
+
+            try {
+                left = evaluateNumber(binary.getLeft());
+            }
+            catch (UnexpectedValue unexpected) {
+                Object rightValue = evaluate(binary.getRight());
+                binary.specialize(Expr.Specialization.GENERIC);
+                return expectNumber(genericBinary(binary.getOperator(), unexpected.getValue(), rightValue));
+            }
+
+            try {
+                right = evaluateNumber(binary.getRight());
+            }
+            catch (UnexpectedValue unexpected) {
+                binary.specialize(Expr.Specialization.GENERIC);
+                return expectNumber(genericBinary(binary.getOperator(), Values.box(left), unexpected.getValue()));
+            }
+
+            return switch (binary.getOperator().getType()) {
+                case MINUS -> left - right;
+                case SLASH -> left / right;
+                case STAR -> left * right;
+                case PLUS -> left + right;
+                default -> throw new IllegalStateException("Unexpected operator " + binary.getOperator().getType());
+            };
+        }
+
+        return expectNumber(evaluate(expr));
+    }
+
+    private Object compareNumbers(Expr.Binary expr) {
+        double left;
+        double right;
+
+        try {
+            left = evaluateNumber(expr.getLeft());
+        }
+        catch (UnexpectedValue unexpected) {
+            Object rightValue = evaluate(expr.getRight());
+            expr.specialize(Expr.Specialization.GENERIC);
+            return genericBinary(expr.getOperator(), unexpected.getValue(), rightValue);
+        }
+
+        try {
+            right = evaluateNumber(expr.getRight());
+        }
+        catch (UnexpectedValue unexpected) {
+            expr.specialize(Expr.Specialization.GENERIC);
+            return genericBinary(expr.getOperator(), Values.box(left), unexpected.getValue());
+        }
+
+        return switch (expr.getOperator().getType()) {
+            case GREATER -> left > right;
+            case GREATER_EQUAL -> left >= right;
+            case LESS -> left < right;
+            case LESS_EQUAL -> left <= right;
+            case BANG_EQUAL -> Double.compare(left, right) != 0;
+            case EQUAL_EQUAL -> Double.compare(left, right) == 0;
+            default -> throw new IllegalStateException("Unexpected operator " + expr.getOperator().getType());
+        };
+    }
+
+    private double expectNumber(Object value) {
+        if (value instanceof Double) {
+            return (double) value;
+        }
+        throw new UnexpectedValue(value);
+    }
+
+    private boolean isComparison(Token operator) {
+        return switch (operator.getType()) {
+            case GREATER, GREATER_EQUAL, LESS, LESS_EQUAL, BANG_EQUAL, EQUAL_EQUAL -> true;
+            default -> false;
+        };
+    }
+
+    private Object stringBinary(Token operator, String left, String right) {
+        return switch (operator.getType()) {
+            case BANG_EQUAL -> !left.equals(right);
+            case EQUAL_EQUAL -> left.equals(right);
+            case PLUS -> left + right;
+            default -> genericBinary(operator, left, right);
+        };
+    }
+
+    private Expr.Specialization specializeBinary(Expr.Binary expr, Object left, Object right) {
+        if (expr.getSpecialization() != Expr.Specialization.UNINITIALIZED) {
+            return Expr.Specialization.GENERIC;
+        }
+        if (left instanceof Double && right instanceof Double) {
+            return Expr.Specialization.NUMBER;
+        }
+        if (left instanceof String && right instanceof String) {
+            return Expr.Specialization.STRING;
+        }
+        return Expr.Specialization.GENERIC;
+    }
+
+    private Object genericUnary(Token operator, Object right) {
+        switch (operator.getType()) {
+            case MINUS -> {
+                checkNumberOperand(operator, right);
+                return Values.box(-(double) right);
+            }
+            case BANG -> {
+                return !Values.isTruthy(right);
+            }
+        }
 
         return null;
     }
 
-    public void executeBlock(List<Stmt> statements, Environment environment) {
+    private Expr.Specialization specializeUnary(Expr.Unary expr, Object right) {
+        if (expr.getSpecialization() != Expr.Specialization.UNINITIALIZED) {
+            return Expr.Specialization.GENERIC;
+        }
+        if (expr.getOperator().getType() == TokenType.MINUS && right instanceof Double) {
+            return Expr.Specialization.NUMBER;
+        }
+        if (expr.getOperator().getType() == TokenType.BANG && right instanceof Boolean) {
+            return Expr.Specialization.BOOLEAN;
+        }
+        return Expr.Specialization.GENERIC;
+    }
+
+    private Expr.Specialization specializeLogical(Expr.Logical expr, Object left) {
+        if (expr.getSpecialization() == Expr.Specialization.UNINITIALIZED && left instanceof Boolean) {
+            return Expr.Specialization.BOOLEAN;
+        }
+        return Expr.Specialization.GENERIC;
+    }
+
+    public Object executeBlock(List<Stmt> statements, Environment environment) {
         Environment previous = this.environment;
 
         try {
             this.environment = environment;
 
             for (Stmt statement : statements) {
-                execute(statement);
+                Object completion = execute(statement);
+
+                if (completion != NORMAL) {
+                    return completion;
+                }
             }
+
+            return NORMAL;
         } finally {
             this.environment = previous;
         }
     }
 
     public void interpret(List<Stmt> statements) {
+        // Left over from an earlier run, it would blame a call in that program
+        callSite = null;
+
         try {
             for (Stmt statement : statements) {
                 execute(statement);
             }
         }
         catch (RuntimeError error) {
-            Lox.runtimeError(error);
+            reporter.runtimeError(error);
+        }
+        // Lox calls nest on the Java stack, so running out of it is reported as
+        // a Lox error at the last call made, like the VM's frame limit. It's
+        // caught out here because a handler on every call slowed them all down.
+        catch (StackOverflowError error) {
+            // Overflowing before any call, in deeply nested expressions, leaves no call to blame
+            RuntimeError overflow = callSite == null
+                    ? new RuntimeError("Stack overflow")
+                    : new RuntimeError(callSite, "Stack overflow");
+            reporter.runtimeError(overflow);
         }
     }
 
-    private void execute(Stmt statement) {
-        statement.accept(this);
+    private void define(Token name, int slot, Object value) {
+        if (slot < 0) {
+            globals.define(name, value);
+        } else {
+            environment.define(slot, value);
+        }
     }
 
-    private String stringify(Object object) {
-        if (object == null) {
-            return "nil";
-        }
-        if (object instanceof Double) {
-            String text = object.toString();
-            if (text.endsWith(".0")) {
-                text = text.substring(0, text.length() - 2);
-            }
-            return text;
-        }
-        return object.toString();
+    private Object execute(Stmt statement) {
+        return statement.accept(this);
     }
 
     private void checkNumberOperands(Token operator, Object left, Object right) {
@@ -288,26 +635,6 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         throw new RuntimeError(operator, "Operand must be a number");
     }
 
-    private boolean isEqual(Object a, Object b) {
-        if (a == null && b == null) {
-            return true;
-        }
-        if (a == null) {
-            return false;
-        }
-        return a.equals(b);
-    }
-
-    private boolean isTruthy(Object object) {
-        if (object == null) {
-            return false;
-        }
-        if (object instanceof Boolean) {
-            return (boolean) object;
-        }
-        return true;
-    }
-
     private Object evaluate(Expr expr) {
         return expr.accept(this);
     }
@@ -315,4 +642,18 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     public Environment getGlobals() {
         return globals;
     }
+
+    private static class UnexpectedValue extends RuntimeException {
+
+        private final Object value;
+
+        UnexpectedValue(Object value) {
+            super(null, null, false, false);
+            this.value = value;
+        }
+
+        Object getValue() {
+            return value;
+        }
+    }
 }
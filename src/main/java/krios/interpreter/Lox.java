@@ -3,66 +3,66 @@ package krios.interpreter;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.List;
-
-import static java.nio.charset.Charset.defaultCharset;
 
 public class Lox {
 
-    private static final Interpreter interpreter = new Interpreter();
-
-    private static boolean hasError;
-    private static boolean hasRuntimeError;
-
     public static void main(String[] args) throws IOException {
-        if (args.length > 1) {
-            System.out.println("Usage: jlox [script]");
-            System.exit(64);
+        Backend backend = Backend.INTERPRETER;
+        boolean dumpAst = false;
+        boolean compile = false;
+        boolean parallel = false;
+        int maxCallDepth = LoxEngine.DEFAULT_MAX_CALL_DEPTH;
+        int memoSize = 0;
+        String script = null;
+
+        for (String arg : args) {
+            if (arg.equals("--vm")) {
+                backend = Backend.VIRTUAL_MACHINE;
+            } else if (arg.equals("--closures")) {
+                backend = Backend.CLOSURE_COMPILER;
+            } else if (arg.equals("--dump-ast")) {
+                dumpAst = true;
+            } else if (arg.equals("--parallel")) {
+                parallel = true;
+            } else if (arg.equals("--memoize")) {
+                memoSize = LoxEngine.DEFAULT_MEMO_SIZE;
+            } else if (arg.equals("--compile")) {
+                compile = true;
+            } else if (arg.startsWith("--max-depth=") && isPositiveNumber(arg.substring("--max-depth=".length()))) {
+                maxCallDepth = Integer.parseInt(arg.substring("--max-depth=".length()));
+            } else if (!arg.startsWith("--") && script == null) {
+                script = arg;
+            } else {
+                System.out.println("Usage: jlox [--vm | --closures] [--parallel] [--max-depth=N] [--memoize] [--dump-ast | --compile] [script]");
+                System.exit(64);
+            }
         }
 
-        if (args.length == 1) {
-            runFile(args[0]);
-        } else {
-            runPrompt();
-        }
-    }
+        LoxEngine engine = new LoxEngine(backend, LoxEngine.DEFAULT_CACHE_SIZE, parallel, maxCallDepth, memoSize);
 
-    public static void runtimeError(RuntimeError error) {
-        System.err.printf("%s \n[line: %d]\n", error.getMessage(), error.getToken().getLine());
-        hasRuntimeError = true;
-    }
-
-    public static void error(int line, String message) {
-        System.err.printf("[line: %s] Error: %s \n", line, message);
-        hasError = true;
-    }
-
-    static void error(Token token, String message) {
-        if (token.getType() == TokenType.EOF) {
-            error(token.getLine(), " at end " + message);
+        if (dumpAst) {
+            dumpAst(engine, script);
+        } else if (compile) {
+            compile(engine, script);
+        } else if (script != null) {
+            runFile(engine, script);
         } else {
-            error(token.getLine(), " at '" + token.getLexeme() + "' " + message);
+            runPrompt(engine);
         }
     }
 
-    private static void runFile(String path) throws IOException {
-        byte[] fileContent = Files.readAllBytes(Paths.get(path));
-
-        String sourceCode = new String(fileContent, defaultCharset());
+    private static void runFile(LoxEngine engine, String path) throws IOException {
+        LoxContext context = engine.createContext();
 
-        run(sourceCode);
-
-        if (hasError) {
-            System.exit(65);
-        }
-        if (hasRuntimeError) {
-            System.exit(70);
+        switch (context.runFile(Paths.get(path))) {
+            case COMPILE_ERROR -> System.exit(65);
+            case RUNTIME_ERROR -> System.exit(70);
         }
     }
 
-    private static void runPrompt() throws IOException {
+    private static void runPrompt(LoxEngine engine) throws IOException {
+        LoxContext context = engine.createContext();
         InputStreamReader input = new InputStreamReader(System.in);
         BufferedReader reader = new BufferedReader(input);
 
@@ -74,23 +74,50 @@ public class Lox {
                 break;
             }
 
-            run(line);
+            context.run(line);
+        }
+    }
+
+    private static void compile(LoxEngine engine, String path) throws IOException {
+        if (path == null) {
+            System.out.println("Usage: jlox --compile script");
+            System.exit(64);
+        }
 
-            hasError = false;
+        if (!engine.writeSnapshot(Paths.get(path), new ConsoleErrorReporter())) {
+            System.exit(65);
         }
     }
 
-    private static void run(String sourceCode) {
-        Scanner scanner = new Scanner(sourceCode);
-        List<Token> tokens = scanner.scanTokens();
+    private static void dumpAst(LoxEngine engine, String path) throws IOException {
+        if (path == null) {
+            System.out.println("Usage: jlox --dump-ast script");
+            System.exit(64);
+        }
+
+        CompiledScript script = engine.compileUncached(SourceFile.read(Paths.get(path)), new ConsoleErrorReporter());
 
-        Parser parser = new Parser(tokens);
-        List<Stmt> statements = parser.parse();
+        if (script == null) {
+            System.exit(65);
+        }
+
+        AstPrinter printer = new AstPrinter();
+        for (Stmt statement : script.getStatements()) {
+            System.out.println(printer.print(statement));
+        }
+    }
+
+    private static boolean isPositiveNumber(String text) {
+        if (text.isEmpty() || text.length() > 9) {
+            return false;
+        }
 
-        if (hasError) {
-            return;
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isDigit(text.charAt(i))) {
+                return false;
+            }
         }
 
-        interpreter.interpret(statements);
+        return Integer.parseInt(text) > 0;
     }
-}
\ No newline at end of file
+}
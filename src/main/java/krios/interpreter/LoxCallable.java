@@ -1,10 +1,10 @@
 package krios.interpreter;
 
-import java.util.List;
-
 public interface LoxCallable {
 
-    Object call(Interpreter interpreter, List<Object> arguments);
+    Object[] NO_ARGUMENTS = new Object[0];
+
+    Object call(Interpreter interpreter, Object[] arguments);
 
     int arity();
 }
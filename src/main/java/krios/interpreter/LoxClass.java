@@ -0,0 +1,91 @@
+package krios.interpreter;
+
+import java.util.Arrays;
+
+// Methods are whatever the backend compiles functions to, and are found by a scan
+// over the symbols of their names. Inherited methods are copied in up front, so a
+// lookup never has to walk the superclasses.
+public class LoxClass implements LoxCallable {
+
+    private final String name;
+    private final Shape shape;
+    private int[] methodSymbols = new int[0];
+    private Object[] methods = new Object[0];
+    private Object initializer;
+
+    public LoxClass(String name, Shape shape) {
+        this.name = name;
+        this.shape = shape;
+    }
+
+    public void inherit(LoxClass superclass) {
+        methodSymbols = superclass.methodSymbols.clone();
+        methods = superclass.methods.clone();
+        initializer = superclass.initializer;
+    }
+
+    public void defineMethod(int symbol, Object method, boolean isInitializer) {
+        if (isInitializer) {
+            initializer = method;
+        }
+
+        for (int i = 0; i < methodSymbols.length; i++) {
+            if (methodSymbols[i] == symbol) {
+                methods[i] = method;
+                return;
+            }
+        }
+
+        methodSymbols = Arrays.copyOf(methodSymbols, methodSymbols.length + 1);
+        methods = Arrays.copyOf(methods, methods.length + 1);
+        methodSymbols[methodSymbols.length - 1] = symbol;
+        methods[methods.length - 1] = method;
+    }
+
+    public Object findMethod(int symbol) {
+        for (int i = 0; i < methodSymbols.length; i++) {
+            if (methodSymbols[i] == symbol) {
+                return methods[i];
+            }
+        }
+        return null;
+    }
+
+    public Object getInitializer() {
+        return initializer;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Root of the shapes of this class's instances, shared by every class
+    // created from the same declaration
+    public Shape getShape() {
+        return shape;
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, Object[] arguments) {
+        LoxInstance instance = new LoxInstance(this);
+
+        if (initializer instanceof LoxMethod method) {
+            method.bind(instance).call(interpreter, arguments);
+        }
+
+        return instance;
+    }
+
+    @Override
+    public int arity() {
+        if (initializer instanceof LoxCallable callable) {
+            return callable.arity();
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,89 @@
+package krios.interpreter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+// A context owns its globals and error reporting, and is meant to be used by one
+// thread at a time. Globals persist between runs, like lines typed into the REPL.
+public class LoxContext {
+
+    private final LoxEngine engine;
+    private final TrackingReporter reporter;
+    private final SymbolTable symbols;
+    private Interpreter interpreter;
+    private ClosureInterpreter closureInterpreter;
+    private VirtualMachine virtualMachine;
+
+    // Globals are indexed by symbol, so a context compiles everything it runs
+    // against the one table it was created with
+    LoxContext(LoxEngine engine, ErrorReporter reporter, SymbolTable symbols) {
+        this.engine = engine;
+        this.reporter = new TrackingReporter(reporter);
+        this.symbols = symbols;
+    }
+
+    public Result run(String sourceCode) {
+        reporter.reset();
+
+        return run(engine.compile(sourceCode, reporter, symbols));
+    }
+
+    // Loads the file's snapshot instead of parsing it when there is an up-to-date one
+    public Result runFile(Path path) throws IOException {
+        List<Stmt> statements = SnapshotReader.read(path, Snapshot.pathFor(path), symbols);
+
+        if (statements == null) {
+            reporter.reset();
+            return run(engine.compileUncached(SourceFile.read(path), reporter, symbols));
+        }
+
+        reporter.reset();
+        return run(engine.prepare(statements, reporter, symbols));
+    }
+
+    private Result run(CompiledScript script) {
+        if (script == null) {
+            return Result.COMPILE_ERROR;
+        }
+
+        try {
+            execute(script);
+        }
+        catch (ScriptInterruptedException error) {
+            return Result.INTERRUPTED;
+        }
+
+        return reporter.hasRuntimeError() ? Result.RUNTIME_ERROR : Result.SUCCESS;
+    }
+
+    private void execute(CompiledScript script) {
+        switch (engine.getBackend()) {
+            case INTERPRETER -> {
+                if (interpreter == null) {
+                    interpreter = new Interpreter(symbols, reporter, engine.getMemoizer());
+                }
+                interpreter.interpret(script.getStatements());
+            }
+            case CLOSURE_COMPILER -> {
+                if (closureInterpreter == null) {
+                    closureInterpreter = new ClosureInterpreter(symbols, reporter, engine.getMemoizer());
+                }
+                closureInterpreter.interpret(script.getStatements());
+            }
+            case VIRTUAL_MACHINE -> {
+                if (virtualMachine == null) {
+                    virtualMachine = new VirtualMachine(symbols, reporter, engine.getMaxCallDepth());
+                }
+                virtualMachine.interpret(script.getFunction());
+            }
+        }
+    }
+
+    public enum Result {
+        SUCCESS,
+        COMPILE_ERROR,
+        RUNTIME_ERROR,
+        INTERRUPTED
+    }
+}
@@ -0,0 +1,211 @@
+package krios.interpreter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// Engines can be shared between threads; everything a script can change lives
+// in the contexts they create, and the compiled script cache is thread-safe
+public class LoxEngine {
+
+    public static final int DEFAULT_CACHE_SIZE = 256;
+    public static final int DEFAULT_MAX_CALL_DEPTH = 100_000;
+    public static final int DEFAULT_MEMO_SIZE = 1024;
+
+    // Past this many identifiers, new contexts start on a fresh symbol table.
+    // Contexts keep the table they were created with, so an old table is freed
+    // once its contexts and the cached scripts compiled against it are gone.
+    static final int SYMBOL_TABLE_LIMIT = 1 << 16;
+
+    private final Backend backend;
+    private final ScriptCache cache;
+    private volatile SymbolTable symbols = new SymbolTable();
+    private final ParallelFrontEnd parallelFrontEnd;
+    private final int maxCallDepth;
+    private final Memoizer memoizer;
+
+    public LoxEngine() {
+        this(Backend.INTERPRETER);
+    }
+
+    public LoxEngine(Backend backend) {
+        this(backend, DEFAULT_CACHE_SIZE);
+    }
+
+    public LoxEngine(Backend backend, int cacheSize) {
+        this(backend, cacheSize, false);
+    }
+
+    // With parallel set, large sources are scanned and parsed on several cores
+    public LoxEngine(Backend backend, int cacheSize, boolean parallel) {
+        this(backend, cacheSize, parallel, DEFAULT_MAX_CALL_DEPTH);
+    }
+
+    // The VM keeps its call frames on the heap and allows maxCallDepth of them.
+    // The other backends recurse on the Java stack, so their depth is bounded
+    // by the thread's stack size, and running out is reported the same way.
+    public LoxEngine(Backend backend, int cacheSize, boolean parallel, int maxCallDepth) {
+        this(backend, cacheSize, parallel, maxCallDepth, 0);
+    }
+
+    // With a memoSize, functions found pure keep up to that many results each,
+    // on the backends that walk the tree. 0 leaves memoization off.
+    public LoxEngine(Backend backend, int cacheSize, boolean parallel, int maxCallDepth, int memoSize) {
+        this.backend = backend;
+        this.cache = new ScriptCache(cacheSize);
+        this.parallelFrontEnd = parallel ? new ParallelFrontEnd() : null;
+        this.maxCallDepth = maxCallDepth;
+        this.memoizer = new Memoizer(memoSize);
+    }
+
+    public Backend getBackend() {
+        return backend;
+    }
+
+    public ScriptCache getCache() {
+        return cache;
+    }
+
+    public int getMaxCallDepth() {
+        return maxCallDepth;
+    }
+
+    public Memoizer getMemoizer() {
+        return memoizer;
+    }
+
+    SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    public LoxContext createContext() {
+        return createContext(new ConsoleErrorReporter());
+    }
+
+    public LoxContext createContext(ErrorReporter reporter) {
+        return new LoxContext(this, reporter, currentSymbols());
+    }
+
+    private SymbolTable currentSymbols() {
+        SymbolTable current = symbols;
+
+        if (current.size() < SYMBOL_TABLE_LIMIT) {
+            return current;
+        }
+
+        synchronized (this) {
+            if (symbols == current) {
+                symbols = new SymbolTable();
+            }
+            return symbols;
+        }
+    }
+
+    // Returns null when the source has compile errors, after reporting them.
+    // Failed compiles aren't cached, so their errors are reported on every run.
+    CompiledScript compile(String sourceCode, ErrorReporter reporter, SymbolTable symbols) {
+        ScriptCache.Key key = cache.keyFor(sourceCode);
+        CompiledScript script = cache.get(key);
+
+        // Scripts compiled against an earlier table are replaced as they come up
+        if (script != null && script.getSymbols() == symbols) {
+            return script;
+        }
+
+        script = compileUncached(sourceCode, reporter, symbols);
+
+        if (script != null) {
+            cache.put(key, script);
+        }
+
+        return script;
+    }
+
+    CompiledScript compileUncached(CharSequence sourceCode, ErrorReporter reporter) {
+        return compileUncached(sourceCode, reporter, currentSymbols());
+    }
+
+    // For sources that are read once, like mapped files, which aren't worth a cache entry
+    CompiledScript compileUncached(CharSequence sourceCode, ErrorReporter reporter, SymbolTable symbols) {
+        TrackingReporter tracking = new TrackingReporter(reporter);
+        List<Stmt> statements = null;
+
+        if (parallelFrontEnd != null && sourceCode.length() >= 2 * ParallelFrontEnd.MIN_CHUNK_LENGTH) {
+            statements = parallelFrontEnd.compile(sourceCode, symbols);
+        }
+        if (statements == null) {
+            statements = parse(sourceCode, 1, symbols, tracking);
+        }
+
+        if (statements == null) {
+            return null;
+        }
+
+        return prepare(statements, tracking, symbols);
+    }
+
+    // Takes a program that has already been resolved and optimized, such as one
+    // loaded from a snapshot, and compiles whatever else the backend needs
+    CompiledScript prepare(List<Stmt> statements, ErrorReporter reporter, SymbolTable symbols) {
+        VmFunction function = null;
+
+        if (memoizer.isEnabled()) {
+            new PurityAnalyzer().analyze(statements);
+        }
+
+        if (backend == Backend.VIRTUAL_MACHINE) {
+            TrackingReporter tracking = new TrackingReporter(reporter);
+            function = new BytecodeCompiler(tracking).compile(statements);
+
+            if (tracking.hasError()) {
+                return null;
+            }
+        }
+
+        return new CompiledScript(List.copyOf(statements), function, symbols);
+    }
+
+    // Saves the compiled program next to its source, for LoxContext.runFile to load
+    public boolean writeSnapshot(Path source, ErrorReporter reporter) throws IOException {
+        CompiledScript script = compileUncached(SourceFile.read(source), reporter);
+
+        if (script == null) {
+            return false;
+        }
+
+        Path snapshot = Snapshot.pathFor(source);
+        new SnapshotWriter().write(script.getStatements(), source, snapshot);
+
+        // A snapshot that doesn't load would be ignored in favour of the source
+        // without a word, so it is read back once to make sure it is used
+        if (SnapshotReader.read(source, snapshot, script.getSymbols()) == null) {
+            Files.deleteIfExists(snapshot);
+            throw new IOException("Snapshot " + snapshot + " could not be read back");
+        }
+
+        return true;
+    }
+
+    // Uses nothing of the engine's, so ParallelFrontEnd can run it without one
+    static List<Stmt> parse(CharSequence sourceCode, int line, SymbolTable symbols, TrackingReporter tracking) {
+        Scanner scanner = new Scanner(sourceCode, line, symbols, tracking);
+        List<Stmt> statements = new Parser(scanner, tracking).parse();
+
+        if (tracking.hasError()) {
+            return null;
+        }
+
+        new Resolver(tracking).resolve(statements);
+
+        if (tracking.hasError()) {
+            return null;
+        }
+
+        // Folding rebuilds nodes, so the optimized tree is resolved again
+        statements = new Optimizer().optimize(statements);
+        new Resolver(tracking).resolve(statements);
+
+        return statements;
+    }
+}
@@ -1,36 +1,103 @@
 package krios.interpreter;
 
-import java.util.List;
-
-public class LoxFunction implements LoxCallable {
+public class LoxFunction implements LoxMethod {
 
     private final Stmt.Function declaration;
     private final Environment closure;
+    private final boolean isInitializer;
+    private final MemoCache memo;
 
     public LoxFunction(Stmt.Function declaration, Environment closure) {
+        this(declaration, closure, false);
+    }
+
+    public LoxFunction(Stmt.Function declaration, Environment closure, boolean isInitializer) {
+        this(declaration, closure, isInitializer, null);
+    }
+
+    // With a memo, which only pure functions are given, calls are answered
+    // from earlier ones with the same arguments
+    LoxFunction(Stmt.Function declaration, Environment closure, boolean isInitializer, MemoCache memo) {
         this.declaration = declaration;
         this.closure = closure;
+        this.isInitializer = isInitializer;
+        this.memo = memo;
+    }
+
+    public Stmt.Function getDeclaration() {
+        return declaration;
     }
 
     @Override
-    public Object call(Interpreter interpreter, List<Object> arguments) {
-        Environment environment = new Environment(closure);
-
-        for (int i = 0; i < declaration.getParams().size(); i++) {
-            environment.define(
-                    declaration.getParams().get(i).getLexeme(),
-                    arguments.get(i)
-            );
+    public Object call(Interpreter interpreter, Object[] arguments) {
+        Environment frame = newFrame();
+
+        for (int i = 0; i < arguments.length; i++) {
+            frame.define(i, arguments[i]);
+        }
+
+        return invoke(interpreter, frame);
+    }
+
+    // Parameters occupy the first slots of the frame, so callers can
+    // evaluate arguments straight into it before invoking
+    public Environment newFrame() {
+        return new Environment(closure, declaration.getSlotCount());
+    }
+
+    public Object invoke(Interpreter interpreter, Environment frame) {
+        if (memo == null) {
+            return execute(interpreter, frame);
         }
 
-        try {
-            interpreter.executeBlock(declaration.getBody(), environment);
+        Object key = memo.keyOf(frame, arity());
+
+        if (key == MemoCache.UNCACHEABLE) {
+            return execute(interpreter, frame);
         }
-        catch (Return returnValue) {
-            return returnValue.getValue();
+
+        Object result = memo.get(key);
+
+        if (result == MemoCache.MISSING) {
+            result = execute(interpreter, frame);
+            memo.put(key, result);
         }
 
-        return null;
+        return result;
+    }
+
+    // Tail calls come back from the body as a TailCall and run in this loop,
+    // so a chain of them takes constant Java stack however long it gets.
+    // Functions reached by a tail call don't consult their memo.
+    private Object execute(Interpreter interpreter, Environment frame) {
+        LoxFunction function = this;
+
+        while (true) {
+            ScriptInterruptedException.check();
+            Object completion = interpreter.executeBlock(function.declaration.getBody(), frame);
+
+            if (completion instanceof TailCall tailCall) {
+                function = (LoxFunction) tailCall.getFunction();
+                frame = tailCall.getFrame();
+                continue;
+            }
+
+            // Initializers always return the instance, even from an empty return
+            if (function.isInitializer) {
+                return function.closure.getAt(0, 0);
+            }
+            if (completion == Interpreter.NORMAL) {
+                return null;
+            }
+            return completion;
+        }
+    }
+
+    @Override
+    public LoxFunction bind(LoxInstance instance) {
+        Environment environment = new Environment(closure, 1);
+        environment.define(0, instance);
+        return new LoxFunction(declaration, environment, isInitializer);
     }
 
     @Override
@@ -0,0 +1,65 @@
+package krios.interpreter;
+
+import java.util.Arrays;
+
+// Field values live in a flat array, laid out by the instance's shape
+public class LoxInstance {
+
+    private static final Object[] NO_FIELDS = new Object[0];
+
+    private final LoxClass loxClass;
+    private Shape shape;
+    private Object[] fields = NO_FIELDS;
+
+    public LoxInstance(LoxClass loxClass) {
+        this.loxClass = loxClass;
+        this.shape = loxClass.getShape();
+    }
+
+    public LoxClass getLoxClass() {
+        return loxClass;
+    }
+
+    public Shape getShape() {
+        return shape;
+    }
+
+    public Object getField(int index) {
+        return fields[index];
+    }
+
+    // Fields shadow methods. Methods are bound here, so this is only for
+    // backends whose functions are LoxMethods.
+    public Object get(Token name, InlineCache cache) {
+        int index = cache.fieldIndex(shape, name.getSymbol());
+
+        if (index >= 0) {
+            return fields[index];
+        }
+
+        if (loxClass.findMethod(name.getSymbol()) instanceof LoxMethod method) {
+            return method.bind(this);
+        }
+
+        throw new RuntimeError(name, "Undefined property '" + name.getLexeme() + "'");
+    }
+
+    public void set(Token name, Object value, InlineCache cache) {
+        cache.store(this, name.getSymbol(), value);
+    }
+
+    // Index and shape come from InlineCache.store; the shape changes when the field is new
+    void store(int index, Shape next, Object value) {
+        if (index >= fields.length) {
+            fields = Arrays.copyOf(fields, Math.max(4, fields.length * 2));
+        }
+
+        fields[index] = value;
+        shape = next;
+    }
+
+    @Override
+    public String toString() {
+        return loxClass.getName() + " instance";
+    }
+}
@@ -0,0 +1,8 @@
+package krios.interpreter;
+
+// Functions that can be declared in a class, and are bound to an instance
+// when looked up on it
+public interface LoxMethod extends LoxCallable {
+
+    LoxCallable bind(LoxInstance instance);
+}
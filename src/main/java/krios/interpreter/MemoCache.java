@@ -0,0 +1,133 @@
+package krios.interpreter;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// LRU cache of a pure function's results, keyed by its arguments. Only calls
+// whose arguments and result are all numbers, strings, booleans or nil are
+// cached: anything else has an identity a cached result would leak between calls.
+// A function object is used by one context, so this needs no locking.
+//
+// Purity is decided for one program, but its globals live on in the context and
+// can be redefined or assigned by later ones. Results are dropped once any of
+// the globals the function depends on has been written since they were cached.
+// Writes to other globals, like a loop counter, leave them alone.
+final class MemoCache {
+
+    static final Object MISSING = new Object();
+    static final Object UNCACHEABLE = new Object();
+
+    private static final Object NO_ARGUMENTS = new Object();
+
+    private final Memoizer memoizer;
+    private final int capacity;
+    private final Environment globals;
+    private final int[] globalReads;
+    // The globals' version as of the last check that globalReads were unchanged
+    private long version;
+    private Map<Object, Object> results;
+
+    MemoCache(Memoizer memoizer, int capacity, Environment globals, int[] globalReads) {
+        this.memoizer = memoizer;
+        this.capacity = capacity;
+        this.globals = globals;
+        this.globalReads = globalReads;
+        this.version = globals.getVersion();
+    }
+
+    // The arguments occupy the first slots of the callee's frame
+    Object keyOf(Environment frame, int arity) {
+        if (arity == 0) {
+            return NO_ARGUMENTS;
+        }
+        if (arity == 1) {
+            Object argument = frame.getAt(0, 0);
+            return isPrimitive(argument) ? argument : skip();
+        }
+
+        Object[] arguments = new Object[arity];
+
+        for (int i = 0; i < arity; i++) {
+            arguments[i] = frame.getAt(0, i);
+
+            if (!isPrimitive(arguments[i])) {
+                return skip();
+            }
+        }
+
+        return Arrays.asList(arguments);
+    }
+
+    Object get(Object key) {
+        if (globalsChanged()) {
+            version = globals.getVersion();
+            results = null;
+        }
+
+        Object result = results == null ? MISSING : results.getOrDefault(key, MISSING);
+
+        if (result == MISSING) {
+            memoizer.recordMiss();
+        } else {
+            memoizer.recordHit();
+        }
+
+        return result;
+    }
+
+    void put(Object key, Object result) {
+        if (!isPrimitive(result)) {
+            memoizer.recordSkipped();
+            return;
+        }
+        // Computed while the globals changed, so it may already be stale
+        if (globalsChanged()) {
+            return;
+        }
+
+        // Closures are often created to be called once or not at all, so the
+        // map waits for the first result worth keeping
+        if (results == null) {
+            results = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+                    if (size() > capacity) {
+                        memoizer.recordEviction();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        results.put(key, result);
+    }
+
+    // Only walks globalReads when some global has been written since the last check
+    private boolean globalsChanged() {
+        long current = globals.getVersion();
+
+        if (current == version) {
+            return false;
+        }
+
+        for (int symbol : globalReads) {
+            if (globals.getVersion(symbol) > version) {
+                return true;
+            }
+        }
+
+        version = current;
+        return false;
+    }
+
+    private Object skip() {
+        memoizer.recordSkipped();
+        return UNCACHEABLE;
+    }
+
+    private static boolean isPrimitive(Object value) {
+        return value == null || value instanceof Double || value instanceof String || value instanceof Boolean;
+    }
+}
@@ -0,0 +1,81 @@
+package krios.interpreter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Hands out result caches to functions found pure, and counts how they do
+// across every context of an engine. A capacity of 0 turns memoization off.
+public class Memoizer {
+
+    private final int capacity;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    Memoizer(int capacity) {
+        this.capacity = capacity;
+    }
+
+    boolean isEnabled() {
+        return capacity > 0;
+    }
+
+    // Each function object gets its own cache, since closures of the same
+    // declaration can capture different values
+    MemoCache newCache(Stmt.Function declaration, Environment globals) {
+        if (capacity == 0 || !declaration.isPure()) {
+            return null;
+        }
+        return new MemoCache(this, capacity, globals, declaration.getGlobalReads());
+    }
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordEviction() {
+        evictions.increment();
+    }
+
+    void recordSkipped() {
+        skipped.increment();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    // Calls to memoized functions that bypassed the cache, because an argument
+    // or the result wasn't a number, string, boolean or nil
+    public long getSkipped() {
+        return skipped.sum();
+    }
+
+    public double getHitRate() {
+        long hits = getHits();
+        long lookups = hits + getMisses();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("capacity=%d hits=%d misses=%d evictions=%d skipped=%d hitRate=%.1f%%",
+                capacity, getHits(), getMisses(), getEvictions(), getSkipped(), getHitRate() * 100);
+    }
+}
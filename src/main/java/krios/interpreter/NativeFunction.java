@@ -0,0 +1,50 @@
+package krios.interpreter;
+
+import java.util.List;
+
+public class NativeFunction implements LoxCallable {
+
+    private final String name;
+    private final int arity;
+    private final Body body;
+
+    public NativeFunction(String name, int arity, Body body) {
+        this.name = name;
+        this.arity = arity;
+        this.body = body;
+    }
+
+    public static List<NativeFunction> standardLibrary() {
+        return List.of(
+                new NativeFunction("clock", 0, arguments -> (double) System.currentTimeMillis() / 1000.0)
+        );
+    }
+
+    public Object call(Object[] arguments) {
+        return body.call(arguments);
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, Object[] arguments) {
+        return call(arguments);
+    }
+
+    @Override
+    public int arity() {
+        return arity;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return "<native fn>";
+    }
+
+    public interface Body {
+
+        Object call(Object[] arguments);
+    }
+}
@@ -0,0 +1,272 @@
+package krios.interpreter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class Optimizer implements Expr.Visitor<Expr>, Stmt.Visitor<Stmt> {
+
+    public List<Stmt> optimize(List<Stmt> statements) {
+        List<Stmt> optimized = new ArrayList<>(statements.size());
+
+        for (Stmt statement : statements) {
+            optimized.add(optimize(statement));
+        }
+
+        return optimized;
+    }
+
+    @Override
+    public Expr visitBinaryExpr(Expr.Binary expr) {
+        Expr left = optimize(expr.getLeft());
+        Expr right = optimize(expr.getRight());
+
+        if (left instanceof Expr.Literal l && right instanceof Expr.Literal r) {
+            Expr folded = fold(expr.getOperator(), l.getValue(), r.getValue());
+
+            if (folded != null) {
+                return folded;
+            }
+        }
+
+        if (left == expr.getLeft() && right == expr.getRight()) {
+            return expr;
+        }
+        return new Expr.Binary(left, expr.getOperator(), right);
+    }
+
+    @Override
+    public Expr visitCallExpr(Expr.Call expr) {
+        List<Expr> arguments = new ArrayList<>(expr.getArguments().size());
+
+        for (Expr argument : expr.getArguments()) {
+            arguments.add(optimize(argument));
+        }
+
+        return new Expr.Call(optimize(expr.getCallee()), expr.getParen(), arguments);
+    }
+
+    @Override
+    public Expr visitGroupingExpr(Expr.Grouping expr) {
+        return optimize(expr.getExpression());
+    }
+
+    @Override
+    public Expr visitLiteralExpr(Expr.Literal expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitUnaryExpr(Expr.Unary expr) {
+        Expr right = optimize(expr.getRight());
+
+        if (right instanceof Expr.Literal literal) {
+            Object value = literal.getValue();
+
+            switch (expr.getOperator().getType()) {
+                case MINUS -> {
+                    if (value instanceof Double) {
+                        return new Expr.Literal(-(double) value);
+                    }
+                }
+                case BANG -> {
+                    return new Expr.Literal(!Values.isTruthy(value));
+                }
+            }
+        }
+
+        if (right == expr.getRight()) {
+            return expr;
+        }
+        return new Expr.Unary(expr.getOperator(), right);
+    }
+
+    @Override
+    public Expr visitVariableExpr(Expr.Variable expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitAssignExpr(Expr.Assign expr) {
+        Expr value = optimize(expr.getValue());
+
+        if (value == expr.getValue()) {
+            return expr;
+        }
+        return new Expr.Assign(expr.getName(), value);
+    }
+
+    @Override
+    public Expr visitLogicalExpr(Expr.Logical expr) {
+        Expr left = optimize(expr.getLeft());
+        Expr right = optimize(expr.getRight());
+
+        if (left instanceof Expr.Literal literal) {
+            boolean truthy = Values.isTruthy(literal.getValue());
+
+            if (expr.getOperator().getType() == TokenType.OR) {
+                return truthy ? left : right;
+            }
+            return truthy ? right : left;
+        }
+
+        if (left == expr.getLeft() && right == expr.getRight()) {
+            return expr;
+        }
+        return new Expr.Logical(left, expr.getOperator(), right);
+    }
+
+    @Override
+    public Expr visitGetExpr(Expr.Get expr) {
+        Expr object = optimize(expr.getObject());
+
+        if (object == expr.getObject()) {
+            return expr;
+        }
+        return new Expr.Get(object, expr.getName());
+    }
+
+    @Override
+    public Expr visitSetExpr(Expr.Set expr) {
+        Expr object = optimize(expr.getObject());
+        Expr value = optimize(expr.getValue());
+
+        if (object == expr.getObject() && value == expr.getValue()) {
+            return expr;
+        }
+        return new Expr.Set(object, expr.getName(), value);
+    }
+
+    @Override
+    public Expr visitThisExpr(Expr.This expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitSuperExpr(Expr.Super expr) {
+        return expr;
+    }
+
+    @Override
+    public Stmt visitExpressionStmt(Stmt.Expression stmt) {
+        return new Stmt.Expression(optimize(stmt.getExpression()));
+    }
+
+    @Override
+    public Stmt visitPrintStmt(Stmt.Print stmt) {
+        return new Stmt.Print(optimize(stmt.getExpression()));
+    }
+
+    @Override
+    public Stmt visitReturnStmt(Stmt.Return stmt) {
+        if (stmt.getValue() == null) {
+            return stmt;
+        }
+        return new Stmt.Return(stmt.getKeyword(), optimize(stmt.getValue()));
+    }
+
+    @Override
+    public Stmt visitVarStmt(Stmt.Var stmt) {
+        if (stmt.getInitializer() == null) {
+            return stmt;
+        }
+        return new Stmt.Var(stmt.getName(), optimize(stmt.getInitializer()));
+    }
+
+    @Override
+    public Stmt visitBlockStmt(Stmt.Block stmt) {
+        return new Stmt.Block(optimize(stmt.getStatements()));
+    }
+
+    @Override
+    public Stmt visitIfStmt(Stmt.If stmt) {
+        Expr condition = optimize(stmt.getCondition());
+
+        if (condition instanceof Expr.Literal literal) {
+            if (Values.isTruthy(literal.getValue())) {
+                return optimize(stmt.getThenBranch());
+            }
+            if (stmt.getElseBranch() != null) {
+                return optimize(stmt.getElseBranch());
+            }
+            return emptyBlock();
+        }
+
+        Stmt elseBranch = stmt.getElseBranch() == null ? null : optimize(stmt.getElseBranch());
+        return new Stmt.If(condition, optimize(stmt.getThenBranch()), elseBranch);
+    }
+
+    @Override
+    public Stmt visitWhileStmt(Stmt.While stmt) {
+        Expr condition = optimize(stmt.getCondition());
+
+        if (condition instanceof Expr.Literal literal && !Values.isTruthy(literal.getValue())) {
+            return emptyBlock();
+        }
+
+        return new Stmt.While(condition, optimize(stmt.getBody()));
+    }
+
+    @Override
+    public Stmt visitFunctionStmt(Stmt.Function stmt) {
+        return new Stmt.Function(stmt.getName(), stmt.getParams(), optimize(stmt.getBody()));
+    }
+
+    @Override
+    public Stmt visitClassStmt(Stmt.Class stmt) {
+        List<Stmt.Function> methods = new ArrayList<>(stmt.getMethods().size());
+
+        for (Stmt.Function method : stmt.getMethods()) {
+            methods.add((Stmt.Function) optimize(method));
+        }
+
+        return new Stmt.Class(stmt.getName(), stmt.getSuperclass(), methods);
+    }
+
+    private Expr fold(Token operator, Object left, Object right) {
+        switch (operator.getType()) {
+            case BANG_EQUAL -> {
+                return new Expr.Literal(!Values.isEqual(left, right));
+            }
+            case EQUAL_EQUAL -> {
+                return new Expr.Literal(Values.isEqual(left, right));
+            }
+            case PLUS -> {
+                if (left instanceof String && right instanceof String) {
+                    return new Expr.Literal((String) left + (String) right);
+                }
+            }
+        }
+
+        // Anything else would be a runtime error, which has to stay a runtime error
+        if (!(left instanceof Double) || !(right instanceof Double)) {
+            return null;
+        }
+
+        double l = (double) left;
+        double r = (double) right;
+
+        return switch (operator.getType()) {
+            case GREATER -> new Expr.Literal(l > r);
+            case GREATER_EQUAL -> new Expr.Literal(l >= r);
+            case LESS -> new Expr.Literal(l < r);
+            case LESS_EQUAL -> new Expr.Literal(l <= r);
+            case MINUS -> new Expr.Literal(l - r);
+            case SLASH -> new Expr.Literal(l / r);
+            case STAR -> new Expr.Literal(l * r);
+            case PLUS -> new Expr.Literal(l + r);
+            default -> null;
+        };
+    }
+
+    private Stmt emptyBlock() {
+        return new Stmt.Block(new ArrayList<>());
+    }
+
+    private Expr optimize(Expr expr) {
+        return expr.accept(this);
+    }
+
+    private Stmt optimize(Stmt stmt) {
+        return stmt.accept(this);
+    }
+}
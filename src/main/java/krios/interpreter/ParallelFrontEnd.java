@@ -0,0 +1,178 @@
+package krios.interpreter;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Splits a large source in front of top-level `fun`, `class` and `var` keywords
+// and runs the whole front end on each piece in parallel. Top-level statements are
+// resolved independently of each other, so the pieces stitch back together into
+// exactly what a sequential compile would produce.
+class ParallelFrontEnd {
+
+    static final int MIN_CHUNK_LENGTH = 16 * 1024;
+
+    private static final ErrorReporter SILENT = new ErrorReporter() {
+        @Override
+        public void error(int line, String message) {
+        }
+
+        @Override
+        public void runtimeError(RuntimeError error) {
+        }
+    };
+
+    // Returns null when the source doesn't split or any piece has errors. Those
+    // are left for a sequential compile to report, with the usual messages.
+    List<Stmt> compile(CharSequence source, SymbolTable symbols) {
+        // With a single worker, splitting would only add the pre-scan
+        if (ForkJoinPool.getCommonPoolParallelism() < 2) {
+            return null;
+        }
+
+        List<Chunk> chunks = split(source);
+
+        if (chunks.size() < 2) {
+            return null;
+        }
+
+        CompileChunks task = new CompileChunks(source, symbols, chunks, 0, chunks.size());
+        ForkJoinPool.commonPool().invoke(task);
+
+        List<Stmt> statements = new ArrayList<>();
+
+        for (Chunk chunk : chunks) {
+            if (chunk.statements == null) {
+                return null;
+            }
+            statements.addAll(chunk.statements);
+        }
+
+        return statements;
+    }
+
+    private List<Chunk> split(CharSequence source) {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        int target = Math.max(MIN_CHUNK_LENGTH, source.length() / (parallelism * 4));
+
+        List<Chunk> chunks = new ArrayList<>();
+        int start = 0;
+        int startLine = 1;
+        int line = 1;
+        int braces = 0;
+        int parentheses = 0;
+
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+
+            switch (c) {
+                case '\n' -> line++;
+                case '{' -> braces++;
+                case '}' -> braces--;
+                case '(' -> parentheses++;
+                case ')' -> parentheses--;
+                case '"' -> {
+                    for (i++; i < source.length() && source.charAt(i) != '"'; i++) {
+                        if (source.charAt(i) == '\n') {
+                            line++;
+                        }
+                    }
+                }
+                case '/' -> {
+                    if (i + 1 < source.length() && source.charAt(i + 1) == '/') {
+                        while (i + 1 < source.length() && source.charAt(i + 1) != '\n') {
+                            i++;
+                        }
+                    }
+                }
+                default -> {
+                    if (braces == 0 && parentheses == 0 && i - start >= target && isDeclarationStart(source, i)) {
+                        chunks.add(new Chunk(start, i, startLine));
+                        start = i;
+                        startLine = line;
+                    }
+                }
+            }
+        }
+
+        chunks.add(new Chunk(start, source.length(), startLine));
+        return chunks;
+    }
+
+    private boolean isDeclarationStart(CharSequence source, int index) {
+        if (index > 0 && isIdentifierPart(source.charAt(index - 1))) {
+            return false;
+        }
+
+        return isWord(source, index, "fun") || isWord(source, index, "class") || isWord(source, index, "var");
+    }
+
+    private boolean isWord(CharSequence source, int index, String word) {
+        int end = index + word.length();
+
+        if (end > source.length() || (end < source.length() && isIdentifierPart(source.charAt(end)))) {
+            return false;
+        }
+
+        for (int i = 0; i < word.length(); i++) {
+            if (source.charAt(index + i) != word.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean isIdentifierPart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private static class Chunk {
+
+        private final int start;
+        private final int end;
+        private final int line;
+        private List<Stmt> statements;
+
+        Chunk(int start, int end, int line) {
+            this.start = start;
+            this.end = end;
+            this.line = line;
+        }
+    }
+
+    private static class CompileChunks extends RecursiveAction {
+
+        private final CharSequence source;
+        private final SymbolTable symbols;
+        private final List<Chunk> chunks;
+        private final int from;
+        private final int to;
+
+        CompileChunks(CharSequence source, SymbolTable symbols, List<Chunk> chunks, int from, int to) {
+            this.source = source;
+            this.symbols = symbols;
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                Chunk chunk = chunks.get(from);
+                CharSequence text = CharBuffer.wrap(source, chunk.start, chunk.end);
+                chunk.statements = LoxEngine.parse(text, chunk.line, symbols, new TrackingReporter(SILENT));
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(
+                    new CompileChunks(source, symbols, chunks, from, middle),
+                    new CompileChunks(source, symbols, chunks, middle, to)
+            );
+        }
+    }
+}
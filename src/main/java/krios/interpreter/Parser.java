@@ -7,15 +7,25 @@ import java.util.List;
 import static krios.interpreter.TokenType.*;
 
 public class Parser {
-    private final List<Token> tokens;
-    private int current = 0;
+    private final TokenSource tokens;
+    private final ErrorReporter reporter;
+    private Token current;
+    private Token previous;
 
-    public Parser(List<Token> tokens) {
+    public Parser(List<Token> tokens, ErrorReporter reporter) {
+        this(tokens.iterator()::next, reporter);
+    }
+
+    // Pulls tokens from the source as it goes, so only the current and
+    // previous ones are held instead of the whole file's worth
+    public Parser(TokenSource tokens, ErrorReporter reporter) {
         this.tokens = tokens;
+        this.reporter = reporter;
     }
 
     public List<Stmt> parse() {
         List<Stmt> statements = new ArrayList<>();
+        current = tokens.nextToken();
 
         while (!isAtEnd()) {
             statements.add(declaration());
@@ -26,6 +36,9 @@ public class Parser {
 
     private Stmt declaration() {
         try {
+            if (match(CLASS)) {
+                return classDeclaration();
+            }
             if (match(FUN)) {
                 return function("function");
             }
@@ -40,7 +53,30 @@ public class Parser {
         }
     }
 
-    private Stmt function(String kind) {
+    private Stmt classDeclaration() {
+        Token name = consume(IDENTIFIER, "Expect class name");
+
+        Expr.Variable superclass = null;
+        if (match(LESS)) {
+            consume(IDENTIFIER, "Expect superclass name");
+            superclass = new Expr.Variable(previous());
+        }
+
+        consume(LEFT_BRACE, "Expect '{' before class body");
+
+        List<Stmt.Function> methods = new ArrayList<>();
+        while (!check(RIGHT_BRACE) && !isAtEnd()) {
+            // Methods may be declared with or without 'fun'
+            match(FUN);
+            methods.add(function("method"));
+        }
+
+        consume(RIGHT_BRACE, "Expect '}' after class body");
+
+        return new Stmt.Class(name, superclass, methods);
+    }
+
+    private Stmt.Function function(String kind) {
         Token name = consume(IDENTIFIER, "Expect " + kind + " name");
 
         consume(LEFT_PARENTHESIS, "Expect '(' after " + kind + " name");
@@ -221,6 +257,9 @@ public class Parser {
                 Token name = ((Expr.Variable) expression).getName();
                 return new Expr.Assign(name, value);
             }
+            if (expression instanceof Expr.Get get) {
+                return new Expr.Set(get.getObject(), get.getName(), value);
+            }
 
             throw error(equals, "Invalid assignment target");
         }
@@ -316,6 +355,9 @@ public class Parser {
         while (true) {
             if (match(LEFT_PARENTHESIS)) {
                 expr = finishCall(expr);
+            } else if (match(DOT)) {
+                Token name = consume(IDENTIFIER, "Expect property name after '.'");
+                expr = new Expr.Get(expr, name);
             } else {
                 break;
             }
@@ -356,6 +398,17 @@ public class Parser {
             return new Expr.Literal(previous().getLiteral());
         }
 
+        if (match(THIS)) {
+            return new Expr.This(previous());
+        }
+
+        if (match(SUPER)) {
+            Token keyword = previous();
+            consume(DOT, "Expect '.' after 'super'");
+            Token method = consume(IDENTIFIER, "Expect superclass method name");
+            return new Expr.Super(keyword, method);
+        }
+
         if (match(IDENTIFIER)) {
             return new Expr.Variable(previous());
         }
@@ -376,7 +429,7 @@ public class Parser {
     }
 
     private ParseError error(Token token, String message) {
-        Lox.error(token, message);
+        reporter.error(token, message);
         return new ParseError();
     }
 
@@ -422,7 +475,8 @@ public class Parser {
 
     private Token advance() {
         if (!isAtEnd()) {
-            current++;
+            previous = current;
+            current = tokens.nextToken();
         }
         return previous();
     }
@@ -432,10 +486,10 @@ public class Parser {
     }
 
     private Token peek() {
-        return tokens.get(current);
+        return current;
     }
 
     private Token previous() {
-        return tokens.get(current - 1);
+        return previous;
     }
 }
@@ -0,0 +1,420 @@
+package krios.interpreter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Stack;
+
+// Marks the functions whose results depend only on their arguments, so calls
+// to them can be memoized. A pure function doesn't print, touch instances or
+// assign anything but its own locals. The variables it reads from outside are
+// never assigned, and it only calls pure functions it reaches through such
+// variables.
+//
+// Whether a read or call is allowed depends on code that may come later, like
+// an assignment further down or a callee's own body, so the walk only records
+// them. Purity is settled afterwards by striking out functions until none of
+// those left depend on one struck out.
+//
+// Globals count as never assigned if this program declares them once and
+// doesn't assign them. Other programs run in the same context can still change
+// them, so each pure function is marked with the globals it depends on, directly
+// or through the functions it calls, for MemoCache to watch.
+public class PurityAnalyzer implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
+
+    private final Map<Integer, Binding> globals = new HashMap<>();
+    private final Stack<Map<Integer, Binding>> scopes = new Stack<>();
+    private final Map<Stmt.Function, FunctionInfo> functions = new IdentityHashMap<>();
+    private FunctionInfo currentFunction;
+
+    public void analyze(List<Stmt> statements) {
+        declareGlobals(statements);
+
+        for (Stmt statement : statements) {
+            analyze(statement);
+        }
+
+        settle();
+    }
+
+    @Override
+    public Void visitBinaryExpr(Expr.Binary expr) {
+        analyze(expr.getLeft());
+        analyze(expr.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visitCallExpr(Expr.Call expr) {
+        if (expr.getCallee() instanceof Expr.Variable callee) {
+            Binding binding = lookup(callee.getName());
+
+            if (binding != null && currentFunction != null) {
+                currentFunction.calls.add(binding);
+            }
+        } else {
+            markImpure();
+        }
+
+        analyze(expr.getCallee());
+
+        for (Expr argument : expr.getArguments()) {
+            analyze(argument);
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitGroupingExpr(Expr.Grouping expr) {
+        analyze(expr.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visitLiteralExpr(Expr.Literal expr) {
+        return null;
+    }
+
+    @Override
+    public Void visitUnaryExpr(Expr.Unary expr) {
+        analyze(expr.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visitVariableExpr(Expr.Variable expr) {
+        if (currentFunction == null) {
+            return null;
+        }
+
+        Binding binding = lookup(expr.getName());
+
+        if (binding == null) {
+            // Natives and globals defined by earlier runs
+            markImpure();
+        } else if (binding.owner != currentFunction) {
+            currentFunction.reads.add(binding);
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitAssignExpr(Expr.Assign expr) {
+        analyze(expr.getValue());
+
+        Binding binding = lookup(expr.getName());
+
+        if (binding != null) {
+            binding.assigned = true;
+        }
+        if (binding == null || binding.owner != currentFunction) {
+            markImpure();
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitLogicalExpr(Expr.Logical expr) {
+        analyze(expr.getLeft());
+        analyze(expr.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visitGetExpr(Expr.Get expr) {
+        markImpure();
+        analyze(expr.getObject());
+        return null;
+    }
+
+    @Override
+    public Void visitSetExpr(Expr.Set expr) {
+        markImpure();
+        analyze(expr.getObject());
+        analyze(expr.getValue());
+        return null;
+    }
+
+    @Override
+    public Void visitThisExpr(Expr.This expr) {
+        markImpure();
+        return null;
+    }
+
+    @Override
+    public Void visitSuperExpr(Expr.Super expr) {
+        markImpure();
+        return null;
+    }
+
+    @Override
+    public Void visitExpressionStmt(Stmt.Expression stmt) {
+        analyze(stmt.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visitPrintStmt(Stmt.Print stmt) {
+        markImpure();
+        analyze(stmt.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visitReturnStmt(Stmt.Return stmt) {
+        if (stmt.getValue() != null) {
+            analyze(stmt.getValue());
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitVarStmt(Stmt.Var stmt) {
+        declare(stmt.getName(), null);
+
+        if (stmt.getInitializer() != null) {
+            analyze(stmt.getInitializer());
+        }
+
+        return null;
+    }
+
+    // Scopes only need to shadow names the way the resolver's do, so every
+    // block gets one, including those the resolver skips for having no declarations
+    @Override
+    public Void visitBlockStmt(Stmt.Block stmt) {
+        scopes.push(new HashMap<>());
+
+        for (Stmt statement : stmt.getStatements()) {
+            analyze(statement);
+        }
+
+        scopes.pop();
+        return null;
+    }
+
+    @Override
+    public Void visitIfStmt(Stmt.If stmt) {
+        analyze(stmt.getCondition());
+        analyze(stmt.getThenBranch());
+
+        if (stmt.getElseBranch() != null) {
+            analyze(stmt.getElseBranch());
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitWhileStmt(Stmt.While stmt) {
+        analyze(stmt.getCondition());
+        analyze(stmt.getBody());
+        return null;
+    }
+
+    @Override
+    public Void visitFunctionStmt(Stmt.Function stmt) {
+        declare(stmt.getName(), stmt);
+        analyzeFunction(stmt, true);
+        return null;
+    }
+
+    // Methods are never memoized, since bound methods are created on every
+    // access, but their bodies can still assign variables other functions read
+    @Override
+    public Void visitClassStmt(Stmt.Class stmt) {
+        markImpure();
+        declare(stmt.getName(), null);
+
+        if (stmt.getSuperclass() != null) {
+            analyze(stmt.getSuperclass());
+        }
+
+        for (Stmt.Function method : stmt.getMethods()) {
+            analyzeFunction(method, false);
+        }
+
+        return null;
+    }
+
+    private void analyzeFunction(Stmt.Function function, boolean isCandidate) {
+        FunctionInfo info = new FunctionInfo(isCandidate);
+        functions.put(function, info);
+
+        FunctionInfo enclosingFunction = currentFunction;
+        currentFunction = info;
+        scopes.push(new HashMap<>());
+
+        for (Token param : function.getParams()) {
+            declare(param, null);
+        }
+        for (Stmt statement : function.getBody()) {
+            analyze(statement);
+        }
+
+        scopes.pop();
+        currentFunction = enclosingFunction;
+    }
+
+    // Globals are declared up front, since functions can refer to ones
+    // declared after them
+    private void declareGlobals(List<Stmt> statements) {
+        for (Stmt statement : statements) {
+            Token name;
+            Stmt.Function function = null;
+
+            if (statement instanceof Stmt.Var var) {
+                name = var.getName();
+            } else if (statement instanceof Stmt.Function declaration) {
+                name = declaration.getName();
+                function = declaration;
+            } else if (statement instanceof Stmt.Class declaration) {
+                name = declaration.getName();
+            } else {
+                continue;
+            }
+
+            Binding binding = globals.get(name.getSymbol());
+
+            if (binding == null) {
+                globals.put(name.getSymbol(), new Binding(null, function, name.getSymbol()));
+            } else {
+                binding.redeclared = true;
+            }
+        }
+    }
+
+    private void settle() {
+        boolean changed = true;
+
+        while (changed) {
+            changed = false;
+
+            for (FunctionInfo info : functions.values()) {
+                if (info.isPure && !dependenciesArePure(info)) {
+                    info.isPure = false;
+                    changed = true;
+                }
+            }
+        }
+
+        for (Map.Entry<Stmt.Function, FunctionInfo> entry : functions.entrySet()) {
+            if (entry.getValue().isPure) {
+                Set<Integer> globalReads = new HashSet<>();
+                collectGlobalReads(entry.getValue(), globalReads, new HashSet<>());
+                entry.getKey().markPure(globalReads.stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+    }
+
+    // Callees of a pure function are pure, so its results also depend on the
+    // globals they read
+    private void collectGlobalReads(FunctionInfo info, Set<Integer> globalReads, Set<FunctionInfo> visited) {
+        if (!visited.add(info)) {
+            return;
+        }
+
+        for (Binding binding : info.reads) {
+            if (binding.owner == null) {
+                globalReads.add(binding.symbol);
+            }
+        }
+
+        for (Binding binding : info.calls) {
+            if (binding.owner == null) {
+                globalReads.add(binding.symbol);
+            }
+            collectGlobalReads(functions.get(binding.function), globalReads, visited);
+        }
+    }
+
+    private boolean dependenciesArePure(FunctionInfo info) {
+        for (Binding binding : info.reads) {
+            if (binding.isMutable()) {
+                return false;
+            }
+        }
+
+        for (Binding binding : info.calls) {
+            if (binding.isMutable() || binding.function == null || !functions.get(binding.function).isPure) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void declare(Token name, Stmt.Function function) {
+        // Top-level declarations were made by declareGlobals
+        if (scopes.isEmpty()) {
+            return;
+        }
+
+        scopes.peek().put(name.getSymbol(), new Binding(currentFunction, function, name.getSymbol()));
+    }
+
+    private Binding lookup(Token name) {
+        for (int i = scopes.size() - 1; i >= 0; i--) {
+            Binding binding = scopes.get(i).get(name.getSymbol());
+
+            if (binding != null) {
+                return binding;
+            }
+        }
+
+        return globals.get(name.getSymbol());
+    }
+
+    private void markImpure() {
+        if (currentFunction != null) {
+            currentFunction.isPure = false;
+        }
+    }
+
+    private void analyze(Stmt statement) {
+        statement.accept(this);
+    }
+
+    private void analyze(Expr expr) {
+        expr.accept(this);
+    }
+
+    private static class Binding {
+
+        // The function the variable is local to, null for globals
+        private final FunctionInfo owner;
+        // The declaration, when the variable was declared by one
+        private final Stmt.Function function;
+        private final int symbol;
+        private boolean assigned;
+        private boolean redeclared;
+
+        Binding(FunctionInfo owner, Stmt.Function function, int symbol) {
+            this.owner = owner;
+            this.function = function;
+            this.symbol = symbol;
+        }
+
+        boolean isMutable() {
+            return assigned || redeclared;
+        }
+    }
+
+    private static class FunctionInfo {
+
+        private final List<Binding> reads = new ArrayList<>();
+        private final List<Binding> calls = new ArrayList<>();
+        private boolean isPure;
+
+        FunctionInfo(boolean isCandidate) {
+            this.isPure = isCandidate;
+        }
+    }
+}
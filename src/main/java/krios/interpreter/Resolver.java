@@ -0,0 +1,402 @@
+package krios.interpreter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Stack;
+
+public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
+
+    private final ErrorReporter reporter;
+    private final Stack<Scope> scopes = new Stack<>();
+    private FunctionType currentFunction = FunctionType.NONE;
+    private ClassType currentClass = ClassType.NONE;
+
+    public Resolver(ErrorReporter reporter) {
+        this.reporter = reporter;
+    }
+
+    public void resolve(List<Stmt> statements) {
+        for (Stmt statement : statements) {
+            resolve(statement);
+        }
+    }
+
+    @Override
+    public Void visitBinaryExpr(Expr.Binary expr) {
+        resolve(expr.getLeft());
+        resolve(expr.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visitCallExpr(Expr.Call expr) {
+        resolve(expr.getCallee());
+
+        for (Expr argument : expr.getArguments()) {
+            resolve(argument);
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitGroupingExpr(Expr.Grouping expr) {
+        resolve(expr.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visitLiteralExpr(Expr.Literal expr) {
+        return null;
+    }
+
+    @Override
+    public Void visitUnaryExpr(Expr.Unary expr) {
+        resolve(expr.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visitVariableExpr(Expr.Variable expr) {
+        if (!scopes.isEmpty()) {
+            Binding binding = scopes.peek().get(expr.getName().getSymbol());
+
+            if (binding != null && !binding.defined) {
+                reporter.error(expr.getName(), "Can't read local variable in its own initializer");
+            }
+        }
+
+        for (int i = scopes.size() - 1; i >= 0; i--) {
+            Binding binding = scopes.get(i).get(expr.getName().getSymbol());
+
+            if (binding != null) {
+                expr.resolve(scopes.size() - 1 - i, binding.slot);
+                return null;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitAssignExpr(Expr.Assign expr) {
+        resolve(expr.getValue());
+
+        for (int i = scopes.size() - 1; i >= 0; i--) {
+            Binding binding = scopes.get(i).get(expr.getName().getSymbol());
+
+            if (binding != null) {
+                expr.resolve(scopes.size() - 1 - i, binding.slot);
+                return null;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitLogicalExpr(Expr.Logical expr) {
+        resolve(expr.getLeft());
+        resolve(expr.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visitGetExpr(Expr.Get expr) {
+        resolve(expr.getObject());
+        return null;
+    }
+
+    @Override
+    public Void visitSetExpr(Expr.Set expr) {
+        resolve(expr.getValue());
+        resolve(expr.getObject());
+        return null;
+    }
+
+    @Override
+    public Void visitThisExpr(Expr.This expr) {
+        if (currentClass == ClassType.NONE) {
+            reporter.error(expr.getKeyword(), "Can't use 'this' outside of a class");
+            return null;
+        }
+
+        expr.resolve(depthOf(SymbolTable.THIS));
+        return null;
+    }
+
+    @Override
+    public Void visitSuperExpr(Expr.Super expr) {
+        if (currentClass == ClassType.NONE) {
+            reporter.error(expr.getKeyword(), "Can't use 'super' outside of a class");
+            return null;
+        }
+        if (currentClass != ClassType.SUBCLASS) {
+            reporter.error(expr.getKeyword(), "Can't use 'super' in a class with no superclass");
+            return null;
+        }
+
+        expr.resolve(depthOf(SymbolTable.SUPER));
+        return null;
+    }
+
+    @Override
+    public Void visitExpressionStmt(Stmt.Expression stmt) {
+        resolve(stmt.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visitPrintStmt(Stmt.Print stmt) {
+        resolve(stmt.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visitReturnStmt(Stmt.Return stmt) {
+        if (currentFunction == FunctionType.NONE) {
+            reporter.error(stmt.getKeyword(), "Can't return from top-level code");
+        }
+
+        if (stmt.getValue() != null) {
+            if (currentFunction == FunctionType.INITIALIZER) {
+                reporter.error(stmt.getKeyword(), "Can't return a value from an initializer");
+            }
+
+            resolve(stmt.getValue());
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitVarStmt(Stmt.Var stmt) {
+        int slot = declare(stmt.getName());
+
+        if (stmt.getInitializer() != null) {
+            resolve(stmt.getInitializer());
+        }
+
+        define(stmt.getName());
+        stmt.resolve(slot);
+        return null;
+    }
+
+    @Override
+    public Void visitBlockStmt(Stmt.Block stmt) {
+        // A block without declarations runs in the enclosing environment,
+        // so it must not count as a scope when computing depths
+        if (!hasDeclarations(stmt.getStatements())) {
+            resolve(stmt.getStatements());
+            return null;
+        }
+
+        beginScope();
+        resolve(stmt.getStatements());
+        stmt.setSlotCount(endScope());
+        return null;
+    }
+
+    @Override
+    public Void visitIfStmt(Stmt.If stmt) {
+        resolve(stmt.getCondition());
+        resolve(stmt.getThenBranch());
+
+        if (stmt.getElseBranch() != null) {
+            resolve(stmt.getElseBranch());
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitWhileStmt(Stmt.While stmt) {
+        resolve(stmt.getCondition());
+        resolve(stmt.getBody());
+        return null;
+    }
+
+    @Override
+    public Void visitFunctionStmt(Stmt.Function stmt) {
+        int slot = declare(stmt.getName());
+        define(stmt.getName());
+        stmt.resolve(slot);
+
+        resolveFunction(stmt, FunctionType.FUNCTION);
+        return null;
+    }
+
+    // Methods close over a scope holding the receiver, inside one holding the
+    // superclass when there is one, which is how the backends bind them at runtime
+    @Override
+    public Void visitClassStmt(Stmt.Class stmt) {
+        ClassType enclosingClass = currentClass;
+        currentClass = ClassType.CLASS;
+
+        int slot = declare(stmt.getName());
+        define(stmt.getName());
+        stmt.resolve(slot);
+
+        Expr.Variable superclass = stmt.getSuperclass();
+
+        if (superclass != null) {
+            if (superclass.getName().getSymbol() == stmt.getName().getSymbol()) {
+                reporter.error(superclass.getName(), "A class can't inherit from itself");
+            }
+
+            currentClass = ClassType.SUBCLASS;
+            resolve(superclass);
+
+            beginScope();
+            scopes.peek().add(SymbolTable.SUPER).defined = true;
+        }
+
+        beginScope();
+        scopes.peek().add(SymbolTable.THIS).defined = true;
+
+        for (Stmt.Function method : stmt.getMethods()) {
+            FunctionType type = method.getName().getLexeme().equals("init")
+                    ? FunctionType.INITIALIZER
+                    : FunctionType.METHOD;
+
+            resolveFunction(method, type);
+        }
+
+        endScope();
+
+        if (superclass != null) {
+            endScope();
+        }
+
+        currentClass = enclosingClass;
+        return null;
+    }
+
+    private void resolveFunction(Stmt.Function function, FunctionType type) {
+        FunctionType enclosingFunction = currentFunction;
+        currentFunction = type;
+
+        beginScope();
+        for (Token param : function.getParams()) {
+            declare(param);
+            define(param);
+        }
+        resolve(function.getBody());
+        function.setSlotCount(endScope());
+
+        currentFunction = enclosingFunction;
+    }
+
+    private boolean hasDeclarations(List<Stmt> statements) {
+        for (Stmt statement : statements) {
+            if (statement instanceof Stmt.Var || statement instanceof Stmt.Function || statement instanceof Stmt.Class) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private int depthOf(int symbol) {
+        for (int i = scopes.size() - 1; i >= 0; i--) {
+            if (scopes.get(i).get(symbol) != null) {
+                return scopes.size() - 1 - i;
+            }
+        }
+
+        return -1;
+    }
+
+    private void beginScope() {
+        scopes.push(new Scope());
+    }
+
+    private int endScope() {
+        return scopes.pop().size();
+    }
+
+    private int declare(Token name) {
+        if (scopes.isEmpty()) {
+            return -1;
+        }
+
+        Scope scope = scopes.peek();
+        Binding existing = scope.get(name.getSymbol());
+
+        if (existing != null) {
+            reporter.error(name, "Already a variable with this name in this scope");
+            return existing.slot;
+        }
+
+        return scope.add(name.getSymbol()).slot;
+    }
+
+    private void define(Token name) {
+        if (scopes.isEmpty()) {
+            return;
+        }
+
+        scopes.peek().get(name.getSymbol()).defined = true;
+    }
+
+    private void resolve(Stmt statement) {
+        statement.accept(this);
+    }
+
+    private void resolve(Expr expr) {
+        expr.accept(this);
+    }
+
+    private enum FunctionType {
+        NONE,
+        FUNCTION,
+        METHOD,
+        INITIALIZER
+    }
+
+    private enum ClassType {
+        NONE,
+        CLASS,
+        SUBCLASS
+    }
+
+    // Scopes hold a handful of names, so a linear scan comparing symbols
+    // beats hashing. A binding's slot is its position in the scope.
+    private static class Scope {
+
+        private final List<Binding> bindings = new ArrayList<>();
+
+        Binding get(int symbol) {
+            for (int i = bindings.size() - 1; i >= 0; i--) {
+                Binding binding = bindings.get(i);
+
+                if (binding.symbol == symbol) {
+                    return binding;
+                }
+            }
+            return null;
+        }
+
+        Binding add(int symbol) {
+            Binding binding = new Binding(symbol, bindings.size());
+            bindings.add(binding);
+            return binding;
+        }
+
+        int size() {
+            return bindings.size();
+        }
+    }
+
+    private static class Binding {
+
+        private final int symbol;
+        private final int slot;
+        private boolean defined;
+
+        Binding(int symbol, int slot) {
+            this.symbol = symbol;
+            this.slot = slot;
+        }
+    }
+}
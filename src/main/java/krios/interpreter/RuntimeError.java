@@ -2,13 +2,30 @@ package krios.interpreter;
 
 public class RuntimeError extends RuntimeException {
     private final Token token;
+    private final int line;
 
     public RuntimeError(Token token, String message) {
         super(message);
         this.token = token;
+        this.line = token.getLine();
+    }
+
+    public RuntimeError(int line, String message) {
+        super(message);
+        this.token = null;
+        this.line = line;
+    }
+
+    // For errors that can't be tied to a line
+    public RuntimeError(String message) {
+        this(-1, message);
     }
 
     public Token getToken() {
         return token;
     }
+
+    public int getLine() {
+        return line;
+    }
 }
@@ -1,59 +1,72 @@
 package krios.interpreter;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import static krios.interpreter.TokenType.*;
 
-public class Scanner {
+public class Scanner implements TokenSource {
 
-    private static final Map<String, TokenType> keywords = new HashMap<>();
+    private static final int SYMBOL_CACHE_SIZE = 256;
 
-    static {
-        keywords.put("class", CLASS);
-        keywords.put("fun", FUN);
-        keywords.put("return", RETURN);
-        keywords.put("var", VAR);
-        keywords.put("nil", NIL);
-        keywords.put("print", PRINT);
-
-        keywords.put("and", AND);
-        keywords.put("or", OR);
-
-        keywords.put("if", IF);
-        keywords.put("else", ELSE);
-
-        keywords.put("true", TRUE);
-        keywords.put("false", FALSE);
-
-        keywords.put("for", FOR);
-        keywords.put("while", WHILE);
+    // Keywords and operators are always spelled the same, so their tokens share
+    // one string. A view into the source would keep the whole source, often a
+    // mapped file, alive for as long as a cached tree holds the token.
+    private static final String[] SPELLINGS = new String[TokenType.values().length];
 
-        keywords.put("this", THIS);
-        keywords.put("super", SUPER);
+    static {
+        for (TokenType type : TokenType.values()) {
+            SPELLINGS[type.ordinal()] = spelling(type);
+        }
     }
 
-    private final String source;
-    private final List<Token> tokens;
+    private final CharSequence source;
+    private final SymbolTable symbols;
+    private final ErrorReporter reporter;
+    private final String[] cachedNames = new String[SYMBOL_CACHE_SIZE];
+    private final int[] cachedSymbols = new int[SYMBOL_CACHE_SIZE];
+    private Token scanned;
     private int start = 0;
     private int current = 0;
-    private int line = 1;
+    private int line;
+
+    public Scanner(CharSequence source, SymbolTable symbols, ErrorReporter reporter) {
+        this(source, 1, symbols, reporter);
+    }
 
-    public Scanner(String source) {
+    // For scanning part of a larger source, which starts on a later line
+    public Scanner(CharSequence source, int line, SymbolTable symbols, ErrorReporter reporter) {
         this.source = source;
-        this.tokens = new ArrayList<>();
+        this.line = line;
+        this.symbols = symbols;
+        this.reporter = reporter;
     }
 
     public List<Token> scanTokens() {
+        List<Token> tokens = new ArrayList<>();
+
+        for (Token token = nextToken(); token.getType() != EOF; token = nextToken()) {
+            tokens.add(token);
+        }
+
+        tokens.add(new Token(EOF, "", null, line));
+        return tokens;
+    }
+
+    @Override
+    public Token nextToken() {
         while (!isAtEnd()) {
             start = current;
             scanToken();
+
+            if (scanned != null) {
+                Token token = scanned;
+                scanned = null;
+                return token;
+            }
         }
 
-        tokens.add(new Token(EOF, "", null, line));
-        return tokens;
+        return new Token(EOF, "", null, line);
     }
 
     private void scanToken() {
@@ -102,7 +115,7 @@ public class Scanner {
                     identifier();
                     break;
                 }
-                Lox.error(line, "Unexpected character.");
+                reporter.error(line, "Unexpected character.");
             }
         }
     }
@@ -116,7 +129,7 @@ public class Scanner {
         }
 
         if (isAtEnd()) {
-            Lox.error(line, "Unterminated string.");
+            reporter.error(line, "Unterminated string.");
             return;
         }
 
@@ -124,7 +137,7 @@ public class Scanner {
         advance();
 
         // Excluding " from the string value
-        String value = source.substring(start + 1, current - 1);
+        String value = source.subSequence(start + 1, current - 1).toString();
 
         addToken(STRING, value);
     }
@@ -142,8 +155,30 @@ public class Scanner {
             }
         }
 
-        Double value = Double.valueOf(source.substring(start, current));
-        addToken(NUMBER, value);
+        addToken(NUMBER, numberValue());
+    }
+
+    // Integers short enough to be exact are read straight from the source,
+    // anything else goes through Double.parseDouble
+    private Double numberValue() {
+        int length = current - start;
+
+        if (length <= 15) {
+            long value = 0;
+
+            for (int i = start; i < current; i++) {
+                char c = source.charAt(i);
+
+                if (c == '.') {
+                    return Double.valueOf(source.subSequence(start, current).toString());
+                }
+                value = value * 10 + (c - '0');
+            }
+
+            return (double) value;
+        }
+
+        return Double.valueOf(source.subSequence(start, current).toString());
     }
 
     private void identifier() {
@@ -151,14 +186,107 @@ public class Scanner {
             advance();
         }
 
-        String text = source.substring(start, current);
-        TokenType type = keywords.get(text);
+        TokenType type = keyword();
+
+        if (type != null) {
+            addToken(type);
+            return;
+        }
+
+        // Every occurrence of a name shares the table's copy of its lexeme
+        int symbol = intern();
+        scanned = new Token(IDENTIFIER, symbols.name(symbol), symbol, line);
+    }
 
-        if (type == null) {
-            type = IDENTIFIER;
+    // Matches keywords in place: the first letter (and the second, where several
+    // keywords share the first) picks the only candidate, and the rest is compared
+    private TokenType keyword() {
+        return switch (source.charAt(start)) {
+            case 'a' -> keyword(1, "nd", AND);
+            case 'c' -> keyword(1, "lass", CLASS);
+            case 'e' -> keyword(1, "lse", ELSE);
+            case 'f' -> {
+                if (current - start < 2) {
+                    yield null;
+                }
+                yield switch (source.charAt(start + 1)) {
+                    case 'a' -> keyword(2, "lse", FALSE);
+                    case 'o' -> keyword(2, "r", FOR);
+                    case 'u' -> keyword(2, "n", FUN);
+                    default -> null;
+                };
+            }
+            case 'i' -> keyword(1, "f", IF);
+            case 'n' -> keyword(1, "il", NIL);
+            case 'o' -> keyword(1, "r", OR);
+            case 'p' -> keyword(1, "rint", PRINT);
+            case 'r' -> keyword(1, "eturn", RETURN);
+            case 's' -> keyword(1, "uper", SUPER);
+            case 't' -> {
+                if (current - start < 2) {
+                    yield null;
+                }
+                yield switch (source.charAt(start + 1)) {
+                    case 'h' -> keyword(2, "is", THIS);
+                    case 'r' -> keyword(2, "ue", TRUE);
+                    default -> null;
+                };
+            }
+            case 'v' -> keyword(1, "ar", VAR);
+            case 'w' -> keyword(1, "hile", WHILE);
+            default -> null;
+        };
+    }
+
+    private TokenType keyword(int offset, String rest, TokenType type) {
+        if (current - start != offset + rest.length()) {
+            return null;
         }
-        
-        addToken(type);
+
+        for (int i = 0; i < rest.length(); i++) {
+            if (source.charAt(start + offset + i) != rest.charAt(i)) {
+                return null;
+            }
+        }
+
+        return type;
+    }
+
+    // Names repeat a lot, so recently seen ones are remembered by hash and
+    // recognised without copying them out of the source again
+    private int intern() {
+        int hash = 0;
+
+        for (int i = start; i < current; i++) {
+            hash = 31 * hash + source.charAt(i);
+        }
+
+        int index = (hash ^ (hash >>> 16)) & (SYMBOL_CACHE_SIZE - 1);
+        String cached = cachedNames[index];
+
+        if (cached != null && isCurrentLexeme(cached)) {
+            return cachedSymbols[index];
+        }
+
+        int symbol = symbols.intern(source.subSequence(start, current).toString());
+        cachedNames[index] = symbols.name(symbol);
+        cachedSymbols[index] = symbol;
+
+        return symbol;
+    }
+
+    private boolean isCurrentLexeme(String name) {
+        if (name.length() != current - start) {
+            return false;
+        }
+
+        for (int i = 0; i < name.length(); i++) {
+            if (source.charAt(start + i) != name.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
     }
 
     private char advance() {
@@ -221,9 +349,56 @@ public class Scanner {
         addToken(type, null);
     }
 
+    // Only numbers and strings are left as views, and the parser keeps their
+    // values rather than their tokens
     private void addToken(TokenType type, Object literal) {
-        String text = source.substring(start, current);
+        String spelling = SPELLINGS[type.ordinal()];
+
+        if (spelling != null) {
+            scanned = new Token(type, spelling, literal, line);
+        } else {
+            scanned = new Token(type, source, start, current - start, literal, line);
+        }
+    }
 
-        tokens.add(new Token(type, text, literal, line));
+    private static String spelling(TokenType type) {
+        return switch (type) {
+            case LEFT_PARENTHESIS -> "(";
+            case RIGHT_PARENTHESIS -> ")";
+            case LEFT_BRACE -> "{";
+            case RIGHT_BRACE -> "}";
+            case COMMA -> ",";
+            case DOT -> ".";
+            case SEMICOLON -> ";";
+            case MINUS -> "-";
+            case PLUS -> "+";
+            case SLASH -> "/";
+            case STAR -> "*";
+            case BANG -> "!";
+            case BANG_EQUAL -> "!=";
+            case EQUAL -> "=";
+            case EQUAL_EQUAL -> "==";
+            case GREATER -> ">";
+            case GREATER_EQUAL -> ">=";
+            case LESS -> "<";
+            case LESS_EQUAL -> "<=";
+            case CLASS -> "class";
+            case FUN -> "fun";
+            case RETURN -> "return";
+            case VAR -> "var";
+            case NIL -> "nil";
+            case PRINT -> "print";
+            case AND -> "and";
+            case OR -> "or";
+            case IF -> "if";
+            case ELSE -> "else";
+            case TRUE -> "true";
+            case FALSE -> "false";
+            case FOR -> "for";
+            case WHILE -> "while";
+            case THIS -> "this";
+            case SUPER -> "super";
+            case IDENTIFIER, STRING, NUMBER, EOF -> null;
+        };
     }
 }
@@ -0,0 +1,160 @@
+package krios.interpreter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Cache of compiled scripts keyed by the SHA-256 of their source, so a hit
+// doesn't compare whole sources and scripts can't be made to collide. Lookups
+// take no lock: entries are stamped from a shared clock when used, and a put
+// that takes the cache over capacity evicts the least recently used entry.
+// Racing puts can leave it briefly over capacity, or evict one entry too many.
+public class ScriptCache {
+
+    private final int capacity;
+    private final Map<Key, Entry> scripts = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    ScriptCache(int capacity) {
+        this.capacity = capacity;
+    }
+
+    // Hashing the source is the expensive part of a lookup, so callers compute
+    // the key once for both get and put. It is null when the cache is disabled.
+    Key keyFor(String sourceCode) {
+        return capacity == 0 ? null : Key.of(sourceCode);
+    }
+
+    CompiledScript get(Key key) {
+        if (key == null) {
+            misses.increment();
+            return null;
+        }
+
+        Entry entry = scripts.get(key);
+
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        entry.lastUsed = clock.incrementAndGet();
+        return entry.script;
+    }
+
+    void put(Key key, CompiledScript script) {
+        if (key == null) {
+            return;
+        }
+
+        scripts.put(key, new Entry(script, clock.incrementAndGet()));
+
+        while (scripts.size() > capacity) {
+            evictLeastRecentlyUsed();
+        }
+    }
+
+    public void clear() {
+        scripts.clear();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getSize() {
+        return scripts.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("size=%d/%d hits=%d misses=%d evictions=%d",
+                getSize(), capacity, getHits(), getMisses(), getEvictions());
+    }
+
+    // Puts only happen after compiling a script, which costs far more than
+    // scanning a few hundred entries
+    private void evictLeastRecentlyUsed() {
+        Map.Entry<Key, Entry> eldest = null;
+
+        for (Map.Entry<Key, Entry> candidate : scripts.entrySet()) {
+            if (eldest == null || candidate.getValue().lastUsed < eldest.getValue().lastUsed) {
+                eldest = candidate;
+            }
+        }
+
+        if (eldest != null && scripts.remove(eldest.getKey(), eldest.getValue())) {
+            evictions.increment();
+        }
+    }
+
+    private static class Entry {
+
+        private final CompiledScript script;
+        private volatile long lastUsed;
+
+        Entry(CompiledScript script, long lastUsed) {
+            this.script = script;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    static final class Key {
+
+        private final long word0;
+        private final long word1;
+        private final long word2;
+        private final long word3;
+
+        private Key(byte[] digest) {
+            ByteBuffer buffer = ByteBuffer.wrap(digest);
+            this.word0 = buffer.getLong();
+            this.word1 = buffer.getLong();
+            this.word2 = buffer.getLong();
+            this.word3 = buffer.getLong();
+        }
+
+        static Key of(String sourceCode) {
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                return new Key(digest.digest(sourceCode.getBytes(StandardCharsets.UTF_8)));
+            }
+            catch (NoSuchAlgorithmException error) {
+                // Every Java platform is required to provide SHA-256
+                throw new IllegalStateException(error);
+            }
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key
+                    && word0 == key.word0 && word1 == key.word1 && word2 == key.word2 && word3 == key.word3;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(word0);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package krios.interpreter;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Runs each script in its own context on one of `parallelism` virtual threads.
+// Scripts submitted while all of them are busy wait in a queue of `queueCapacity`,
+// and are rejected once it is full. A script still running `timeout` after it
+// started is interrupted and completes with Result.INTERRUPTED.
+//
+// Interruption is cooperative: scripts check for it at loop back edges and on
+// entering functions, so a long call into a native function runs to the end
+// before its script sees the timeout.
+public class ScriptExecutor implements AutoCloseable {
+
+    private final LoxEngine engine;
+    private final Duration timeout;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService timeouts = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "lox-script-timeouts");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ScriptMetrics metrics = new ScriptMetrics();
+
+    // Scripts are CPU-bound, so by default as many run at once as there are cores
+    public ScriptExecutor(LoxEngine engine, int queueCapacity, Duration timeout) {
+        this(engine, Runtime.getRuntime().availableProcessors(), queueCapacity, timeout);
+    }
+
+    public ScriptExecutor(LoxEngine engine, int parallelism, int queueCapacity, Duration timeout) {
+        this.engine = engine;
+        this.timeout = timeout;
+        this.executor = new ThreadPoolExecutor(
+                parallelism, parallelism, 0, TimeUnit.NANOSECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofVirtual().name("lox-script-", 0).factory()
+        );
+    }
+
+    public CompletableFuture<LoxContext.Result> submit(String sourceCode) {
+        return submit(sourceCode, new ConsoleErrorReporter());
+    }
+
+    public CompletableFuture<LoxContext.Result> submit(String sourceCode, ErrorReporter reporter) {
+        CompletableFuture<LoxContext.Result> result = new CompletableFuture<>();
+
+        try {
+            executor.execute(() -> run(sourceCode, reporter, result));
+        }
+        catch (RejectedExecutionException error) {
+            metrics.recordRejected();
+            throw new RejectedExecutionException("Script queue is full", error);
+        }
+
+        return result;
+    }
+
+    public ScriptMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+        timeouts.shutdownNow();
+    }
+
+    private void run(String sourceCode, ErrorReporter reporter, CompletableFuture<LoxContext.Result> result) {
+        long start = System.nanoTime();
+        Timeout expiry = new Timeout(Thread.currentThread());
+        ScheduledFuture<?> timer = timeouts.schedule(expiry, timeout.toNanos(), TimeUnit.NANOSECONDS);
+
+        try {
+            LoxContext.Result outcome = engine.createContext(reporter).run(sourceCode);
+            metrics.record(outcome, System.nanoTime() - start);
+            result.complete(outcome);
+        }
+        catch (Throwable error) {
+            metrics.recordFailure(System.nanoTime() - start);
+            result.completeExceptionally(error);
+        }
+        finally {
+            timer.cancel(false);
+            expiry.finish();
+        }
+    }
+
+    // Worker threads are reused, so a timeout firing just as its script finishes
+    // mustn't leave an interrupt behind for the next script on the thread
+    private static class Timeout implements Runnable {
+
+        private final Thread thread;
+        private boolean finished;
+
+        Timeout(Thread thread) {
+            this.thread = thread;
+        }
+
+        @Override
+        public synchronized void run() {
+            if (!finished) {
+                thread.interrupt();
+            }
+        }
+
+        // Called on the script's thread once it is done
+        synchronized void finish() {
+            finished = true;
+            Thread.interrupted();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package krios.interpreter;
+
+// Thrown out of a running script when its thread is interrupted. Checked at loop
+// back edges and function entry, so a script can't spin forever without seeing it.
+public class ScriptInterruptedException extends RuntimeException {
+
+    public ScriptInterruptedException() {
+        super("Script interrupted");
+    }
+
+    static void check() {
+        if (Thread.interrupted()) {
+            throw new ScriptInterruptedException();
+        }
+    }
+}
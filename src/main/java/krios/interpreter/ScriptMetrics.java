@@ -0,0 +1,96 @@
+package krios.interpreter;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters are striped so scripts finishing on many cores at once don't contend.
+// Each outcome is counted separately; latency covers every script that ran,
+// whatever its outcome.
+public class ScriptMetrics {
+
+    private final long createdAt = System.nanoTime();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder compileErrors = new LongAdder();
+    private final LongAdder runtimeErrors = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder finished = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    void record(LoxContext.Result result, long nanos) {
+        switch (result) {
+            case SUCCESS -> succeeded.increment();
+            case COMPILE_ERROR -> compileErrors.increment();
+            case RUNTIME_ERROR -> runtimeErrors.increment();
+            case INTERRUPTED -> timedOut.increment();
+        }
+        recordLatency(nanos);
+    }
+
+    void recordFailure(long nanos) {
+        failed.increment();
+        recordLatency(nanos);
+    }
+
+    void recordRejected() {
+        rejected.increment();
+    }
+
+    public long getSucceeded() {
+        return succeeded.sum();
+    }
+
+    public long getCompileErrors() {
+        return compileErrors.sum();
+    }
+
+    public long getRuntimeErrors() {
+        return runtimeErrors.sum();
+    }
+
+    public long getTimedOut() {
+        return timedOut.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    // Scripts that ran to the end without errors, per second since the
+    // executor was created
+    public double getThroughput() {
+        double seconds = (System.nanoTime() - createdAt) / 1e9;
+        return getSucceeded() / seconds;
+    }
+
+    public double getMeanLatencyMillis() {
+        long count = finished.sum();
+        return count == 0 ? 0 : totalNanos.sum() / 1e6 / count;
+    }
+
+    public double getMaxLatencyMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "succeeded=%d compileErrors=%d runtimeErrors=%d timedOut=%d failed=%d rejected=%d " +
+                        "throughput=%.1f/s meanLatency=%.3fms maxLatency=%.3fms",
+                getSucceeded(), getCompileErrors(), getRuntimeErrors(), getTimedOut(), getFailed(), getRejected(),
+                getThroughput(), getMeanLatencyMillis(), getMaxLatencyMillis()
+        );
+    }
+
+    private void recordLatency(long nanos) {
+        finished.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+}
@@ -0,0 +1,48 @@
+package krios.interpreter;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// A hidden class: the names of an instance's fields, in the order they were added,
+// which is also the order of their values in the instance. Instances that gain the
+// same fields in the same order share one shape, found by following transitions from
+// the root shape of their class declaration.
+//
+// Declarations, and so their shapes, are shared by every context running a compiled
+// script, which is why transitions are kept in a concurrent map.
+public final class Shape {
+
+    private final int[] symbols;
+    private final Map<Integer, Shape> transitions = new ConcurrentHashMap<>();
+
+    public Shape() {
+        this(new int[0]);
+    }
+
+    private Shape(int[] symbols) {
+        this.symbols = symbols;
+    }
+
+    // Instances have a handful of fields, so a scan beats hashing
+    public int indexOf(int symbol) {
+        for (int i = 0; i < symbols.length; i++) {
+            if (symbols[i] == symbol) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public Shape withField(int symbol) {
+        return transitions.computeIfAbsent(symbol, added -> {
+            int[] extended = Arrays.copyOf(symbols, symbols.length + 1);
+            extended[symbols.length] = added;
+            return new Shape(extended);
+        });
+    }
+
+    public int size() {
+        return symbols.length;
+    }
+}
@@ -0,0 +1,74 @@
+package krios.interpreter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Layout of a .loxc file, a resolved and optimized program saved next to its
+// source. All values are big-endian:
+//
+//   header     MAGIC, VERSION, source size (long), source last modified (long)
+//   strings    count, then (length, UTF-8 bytes) for each
+//   tokens     count, then (type, lexeme string, literal, line) for each
+//   program    statement count, then each statement as a tagged preorder tree
+//
+// Nodes refer to tokens and tokens to strings by their index in the pools.
+public final class Snapshot {
+
+    public static final String EXTENSION = ".loxc";
+
+    static final int MAGIC = 0x4C4F5843;
+    static final short VERSION = 1;
+
+    static final byte NONE = 0;
+
+    static final byte BINARY = 1;
+    static final byte CALL = 2;
+    static final byte GROUPING = 3;
+    static final byte LITERAL = 4;
+    static final byte UNARY = 5;
+    static final byte VARIABLE = 6;
+    static final byte ASSIGN = 7;
+    static final byte LOGICAL = 8;
+    static final byte GET = 9;
+    static final byte SET = 10;
+    static final byte THIS = 11;
+    static final byte SUPER = 12;
+
+    static final byte EXPRESSION = 1;
+    static final byte PRINT = 2;
+    static final byte RETURN = 3;
+    static final byte VAR = 4;
+    static final byte BLOCK = 5;
+    static final byte IF = 6;
+    static final byte WHILE = 7;
+    static final byte FUNCTION = 8;
+    static final byte CLASS = 9;
+
+    static final byte NIL_VALUE = 0;
+    static final byte TRUE_VALUE = 1;
+    static final byte FALSE_VALUE = 2;
+    static final byte NUMBER_VALUE = 3;
+    static final byte STRING_VALUE = 4;
+
+    private Snapshot() {
+    }
+
+    public static Path pathFor(Path source) {
+        String name = source.getFileName().toString();
+
+        if (name.endsWith(".lox")) {
+            name = name.substring(0, name.length() - ".lox".length());
+        }
+
+        return source.resolveSibling(name + EXTENSION);
+    }
+
+    static long sourceSize(Path source) throws IOException {
+        return Files.size(source);
+    }
+
+    static long sourceLastModified(Path source) throws IOException {
+        return Files.getLastModifiedTime(source).toMillis();
+    }
+}
@@ -0,0 +1,283 @@
+package krios.interpreter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SnapshotReader {
+
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+    private final ByteBuffer in;
+    private final SymbolTable symbols;
+    private String[] strings;
+    private Token[] tokens;
+
+    private SnapshotReader(ByteBuffer in, SymbolTable symbols) {
+        this.in = in;
+        this.symbols = symbols;
+    }
+
+    // Returns null unless the snapshot exists, is well-formed and was written for
+    // the source as it is now, in which case the caller should fall back to parsing
+    public static List<Stmt> read(Path source, Path snapshot, SymbolTable symbols) throws IOException {
+        if (!Files.isRegularFile(snapshot)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(snapshot)) {
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            SnapshotReader reader = new SnapshotReader(mapped, symbols);
+
+            if (!reader.readHeader(source)) {
+                return null;
+            }
+            return reader.readProgram();
+        }
+        // A header can survive corruption further in, so anything going wrong
+        // while decoding the rest means there is no usable snapshot
+        catch (RuntimeException | StackOverflowError error) {
+            return null;
+        }
+    }
+
+    private boolean readHeader(Path source) throws IOException {
+        return in.remaining() >= 22
+                && in.getInt() == Snapshot.MAGIC
+                && in.getShort() == Snapshot.VERSION
+                && in.getLong() == Snapshot.sourceSize(source)
+                && in.getLong() == Snapshot.sourceLastModified(source);
+    }
+
+    private List<Stmt> readProgram() {
+        strings = new String[readCount()];
+
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[readCount()];
+            in.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        tokens = new Token[readCount()];
+
+        for (int i = 0; i < tokens.length; i++) {
+            TokenType type = TOKEN_TYPES[in.get()];
+            String lexeme = strings[in.getInt()];
+            Object literal = readValue();
+            int line = in.getInt();
+
+            if (type == TokenType.IDENTIFIER) {
+                int symbol = symbols.intern(lexeme);
+                tokens[i] = new Token(type, symbols.name(symbol), symbol, line);
+            } else {
+                tokens[i] = new Token(type, lexeme, literal, line);
+            }
+        }
+
+        return readStatements();
+    }
+
+    private List<Stmt> readStatements() {
+        int count = readCount();
+        List<Stmt> statements = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            statements.add(readStmt());
+        }
+
+        return statements;
+    }
+
+    private Stmt readStmt() {
+        Stmt stmt = readOptionalStmt();
+
+        if (stmt == null) {
+            throw new IllegalArgumentException("Missing statement");
+        }
+
+        return stmt;
+    }
+
+    private Stmt readOptionalStmt() {
+        byte tag = in.get();
+
+        switch (tag) {
+            case Snapshot.EXPRESSION -> {
+                return new Stmt.Expression(readExpr());
+            }
+            case Snapshot.PRINT -> {
+                return new Stmt.Print(readExpr());
+            }
+            case Snapshot.RETURN -> {
+                Token keyword = readToken();
+                return new Stmt.Return(keyword, readOptionalExpr());
+            }
+            case Snapshot.VAR -> {
+                Token name = readToken();
+                Stmt.Var stmt = new Stmt.Var(name, readOptionalExpr());
+                stmt.resolve(in.getInt());
+                return stmt;
+            }
+            case Snapshot.BLOCK -> {
+                Stmt.Block stmt = new Stmt.Block(readStatements());
+                stmt.setSlotCount(in.getInt());
+                return stmt;
+            }
+            case Snapshot.IF -> {
+                Expr condition = readExpr();
+                Stmt thenBranch = readStmt();
+                return new Stmt.If(condition, thenBranch, readOptionalStmt());
+            }
+            case Snapshot.WHILE -> {
+                Expr condition = readExpr();
+                return new Stmt.While(condition, readStmt());
+            }
+            case Snapshot.FUNCTION -> {
+                Token name = readToken();
+                List<Token> params = new ArrayList<>();
+
+                for (int count = readCount(); count > 0; count--) {
+                    params.add(readToken());
+                }
+
+                Stmt.Function stmt = new Stmt.Function(name, params, readStatements());
+                stmt.resolve(in.getInt());
+                stmt.setSlotCount(in.getInt());
+                return stmt;
+            }
+            case Snapshot.CLASS -> {
+                Token name = readToken();
+                Expr superclass = readOptionalExpr();
+                List<Stmt.Function> methods = new ArrayList<>();
+
+                for (int count = readCount(); count > 0; count--) {
+                    methods.add((Stmt.Function) readStmt());
+                }
+
+                Stmt.Class stmt = new Stmt.Class(name, (Expr.Variable) superclass, methods);
+                stmt.resolve(in.getInt());
+                return stmt;
+            }
+            case Snapshot.NONE -> {
+                return null;
+            }
+            default -> throw new IllegalArgumentException("Unknown statement tag " + tag);
+        }
+    }
+
+    private Expr readExpr() {
+        Expr expr = readOptionalExpr();
+
+        if (expr == null) {
+            throw new IllegalArgumentException("Missing expression");
+        }
+
+        return expr;
+    }
+
+    private Expr readOptionalExpr() {
+        byte tag = in.get();
+
+        switch (tag) {
+            case Snapshot.BINARY -> {
+                Expr left = readExpr();
+                Token operator = readToken();
+                return new Expr.Binary(left, operator, readExpr());
+            }
+            case Snapshot.CALL -> {
+                Expr callee = readExpr();
+                Token paren = readToken();
+                List<Expr> arguments = new ArrayList<>();
+
+                for (int count = readCount(); count > 0; count--) {
+                    arguments.add(readExpr());
+                }
+
+                return new Expr.Call(callee, paren, arguments);
+            }
+            case Snapshot.GROUPING -> {
+                return new Expr.Grouping(readExpr());
+            }
+            case Snapshot.LITERAL -> {
+                return new Expr.Literal(readValue());
+            }
+            case Snapshot.UNARY -> {
+                Token operator = readToken();
+                return new Expr.Unary(operator, readExpr());
+            }
+            case Snapshot.VARIABLE -> {
+                Expr.Variable expr = new Expr.Variable(readToken());
+                expr.resolve(in.getInt(), in.getInt());
+                return expr;
+            }
+            case Snapshot.ASSIGN -> {
+                Token name = readToken();
+                Expr.Assign expr = new Expr.Assign(name, readExpr());
+                expr.resolve(in.getInt(), in.getInt());
+                return expr;
+            }
+            case Snapshot.LOGICAL -> {
+                Expr left = readExpr();
+                Token operator = readToken();
+                return new Expr.Logical(left, operator, readExpr());
+            }
+            case Snapshot.GET -> {
+                Expr object = readExpr();
+                return new Expr.Get(object, readToken());
+            }
+            case Snapshot.SET -> {
+                Expr object = readExpr();
+                Token name = readToken();
+                return new Expr.Set(object, name, readExpr());
+            }
+            case Snapshot.THIS -> {
+                Expr.This expr = new Expr.This(readToken());
+                expr.resolve(in.getInt());
+                return expr;
+            }
+            case Snapshot.SUPER -> {
+                Token keyword = readToken();
+                Expr.Super expr = new Expr.Super(keyword, readToken());
+                expr.resolve(in.getInt());
+                return expr;
+            }
+            case Snapshot.NONE -> {
+                return null;
+            }
+            default -> throw new IllegalArgumentException("Unknown expression tag " + tag);
+        }
+    }
+
+    // Every element takes at least a byte, so a count beyond what is left is corrupt
+    private int readCount() {
+        int count = in.getInt();
+
+        if (count < 0 || count > in.remaining()) {
+            throw new IllegalArgumentException("Bad count " + count);
+        }
+
+        return count;
+    }
+
+    private Token readToken() {
+        return tokens[in.getInt()];
+    }
+
+    private Object readValue() {
+        byte tag = in.get();
+
+        return switch (tag) {
+            case Snapshot.NIL_VALUE -> null;
+            case Snapshot.TRUE_VALUE -> true;
+            case Snapshot.FALSE_VALUE -> false;
+            case Snapshot.NUMBER_VALUE -> in.getDouble();
+            case Snapshot.STRING_VALUE -> strings[in.getInt()];
+            default -> throw new IllegalArgumentException("Unknown value tag " + tag);
+        };
+    }
+}
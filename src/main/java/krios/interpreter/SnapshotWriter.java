@@ -0,0 +1,369 @@
+package krios.interpreter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+public class SnapshotWriter implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
+
+    private final Map<String, Integer> strings = new HashMap<>();
+    private final List<String> stringPool = new ArrayList<>();
+    private final Map<Token, Integer> tokens = new IdentityHashMap<>();
+    private final List<Token> tokenPool = new ArrayList<>();
+    private ByteBuffer out = ByteBuffer.allocate(4096);
+
+    public void write(List<Stmt> statements, Path source, Path snapshot) throws IOException {
+        writeInt(statements.size());
+        writeStatements(statements);
+        ByteBuffer program = out.flip();
+
+        // The pools are only complete once the whole tree has been walked
+        out = ByteBuffer.allocate(4096);
+        writeHeader(source);
+        writePools();
+        ByteBuffer header = out.flip();
+
+        try (FileChannel channel = FileChannel.open(snapshot, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            ByteBuffer[] buffers = {header, program};
+
+            while (program.hasRemaining()) {
+                channel.write(buffers);
+            }
+        }
+    }
+
+    @Override
+    public Void visitBinaryExpr(Expr.Binary expr) {
+        writeByte(Snapshot.BINARY);
+        write(expr.getLeft());
+        writeToken(expr.getOperator());
+        write(expr.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visitCallExpr(Expr.Call expr) {
+        writeByte(Snapshot.CALL);
+        write(expr.getCallee());
+        writeToken(expr.getParen());
+        writeInt(expr.getArguments().size());
+
+        for (Expr argument : expr.getArguments()) {
+            write(argument);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitGroupingExpr(Expr.Grouping expr) {
+        writeByte(Snapshot.GROUPING);
+        write(expr.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visitLiteralExpr(Expr.Literal expr) {
+        writeByte(Snapshot.LITERAL);
+        writeValue(expr.getValue());
+        return null;
+    }
+
+    @Override
+    public Void visitUnaryExpr(Expr.Unary expr) {
+        writeByte(Snapshot.UNARY);
+        writeToken(expr.getOperator());
+        write(expr.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visitVariableExpr(Expr.Variable expr) {
+        writeByte(Snapshot.VARIABLE);
+        writeToken(expr.getName());
+        writeInt(expr.getDepth());
+        writeInt(expr.getSlot());
+        return null;
+    }
+
+    @Override
+    public Void visitAssignExpr(Expr.Assign expr) {
+        writeByte(Snapshot.ASSIGN);
+        writeToken(expr.getName());
+        write(expr.getValue());
+        writeInt(expr.getDepth());
+        writeInt(expr.getSlot());
+        return null;
+    }
+
+    @Override
+    public Void visitLogicalExpr(Expr.Logical expr) {
+        writeByte(Snapshot.LOGICAL);
+        write(expr.getLeft());
+        writeToken(expr.getOperator());
+        write(expr.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visitGetExpr(Expr.Get expr) {
+        writeByte(Snapshot.GET);
+        write(expr.getObject());
+        writeToken(expr.getName());
+        return null;
+    }
+
+    @Override
+    public Void visitSetExpr(Expr.Set expr) {
+        writeByte(Snapshot.SET);
+        write(expr.getObject());
+        writeToken(expr.getName());
+        write(expr.getValue());
+        return null;
+    }
+
+    @Override
+    public Void visitThisExpr(Expr.This expr) {
+        writeByte(Snapshot.THIS);
+        writeToken(expr.getKeyword());
+        writeInt(expr.getDepth());
+        return null;
+    }
+
+    @Override
+    public Void visitSuperExpr(Expr.Super expr) {
+        writeByte(Snapshot.SUPER);
+        writeToken(expr.getKeyword());
+        writeToken(expr.getMethod());
+        writeInt(expr.getDepth());
+        return null;
+    }
+
+    @Override
+    public Void visitExpressionStmt(Stmt.Expression stmt) {
+        writeByte(Snapshot.EXPRESSION);
+        write(stmt.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visitPrintStmt(Stmt.Print stmt) {
+        writeByte(Snapshot.PRINT);
+        write(stmt.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visitReturnStmt(Stmt.Return stmt) {
+        writeByte(Snapshot.RETURN);
+        writeToken(stmt.getKeyword());
+        writeOptional(stmt.getValue());
+        return null;
+    }
+
+    @Override
+    public Void visitVarStmt(Stmt.Var stmt) {
+        writeByte(Snapshot.VAR);
+        writeToken(stmt.getName());
+        writeOptional(stmt.getInitializer());
+        writeInt(stmt.getSlot());
+        return null;
+    }
+
+    @Override
+    public Void visitBlockStmt(Stmt.Block stmt) {
+        writeByte(Snapshot.BLOCK);
+        writeInt(stmt.getStatements().size());
+        writeStatements(stmt.getStatements());
+        writeInt(stmt.getSlotCount());
+        return null;
+    }
+
+    @Override
+    public Void visitIfStmt(Stmt.If stmt) {
+        writeByte(Snapshot.IF);
+        write(stmt.getCondition());
+        write(stmt.getThenBranch());
+
+        if (stmt.getElseBranch() == null) {
+            writeByte(Snapshot.NONE);
+        } else {
+            write(stmt.getElseBranch());
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitWhileStmt(Stmt.While stmt) {
+        writeByte(Snapshot.WHILE);
+        write(stmt.getCondition());
+        write(stmt.getBody());
+        return null;
+    }
+
+    @Override
+    public Void visitFunctionStmt(Stmt.Function stmt) {
+        writeByte(Snapshot.FUNCTION);
+        writeToken(stmt.getName());
+        writeInt(stmt.getParams().size());
+
+        for (Token param : stmt.getParams()) {
+            writeToken(param);
+        }
+
+        writeInt(stmt.getBody().size());
+        writeStatements(stmt.getBody());
+        writeInt(stmt.getSlot());
+        writeInt(stmt.getSlotCount());
+        return null;
+    }
+
+    @Override
+    public Void visitClassStmt(Stmt.Class stmt) {
+        writeByte(Snapshot.CLASS);
+        writeToken(stmt.getName());
+        writeOptional(stmt.getSuperclass());
+        writeInt(stmt.getMethods().size());
+
+        for (Stmt.Function method : stmt.getMethods()) {
+            write(method);
+        }
+
+        writeInt(stmt.getSlot());
+        return null;
+    }
+
+    private void writeHeader(Path source) throws IOException {
+        writeInt(Snapshot.MAGIC);
+        ensure(2);
+        out.putShort(Snapshot.VERSION);
+        writeLong(Snapshot.sourceSize(source));
+        writeLong(Snapshot.sourceLastModified(source));
+    }
+
+    private void writePools() {
+        // Tokens refer to their strings by index, so those have to be in the
+        // string pool before it is written
+        for (Token token : tokenPool) {
+            stringIndex(token.getLexeme());
+
+            if (token.getLiteral() instanceof String literal) {
+                stringIndex(literal);
+            }
+        }
+
+        writeInt(stringPool.size());
+
+        for (String string : stringPool) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            ensure(bytes.length);
+            out.put(bytes);
+        }
+
+        writeInt(tokenPool.size());
+
+        for (Token token : tokenPool) {
+            writeByte((byte) token.getType().ordinal());
+            writeInt(stringIndex(token.getLexeme()));
+            writeValue(token.getLiteral());
+            writeInt(token.getLine());
+        }
+    }
+
+    private void writeStatements(List<Stmt> statements) {
+        for (Stmt statement : statements) {
+            write(statement);
+        }
+    }
+
+    private void write(Expr expr) {
+        expr.accept(this);
+    }
+
+    private void write(Stmt stmt) {
+        stmt.accept(this);
+    }
+
+    private void writeOptional(Expr expr) {
+        if (expr == null) {
+            writeByte(Snapshot.NONE);
+        } else {
+            write(expr);
+        }
+    }
+
+    private void writeToken(Token token) {
+        Integer index = tokens.get(token);
+
+        if (index == null) {
+            index = tokenPool.size();
+            tokens.put(token, index);
+            tokenPool.add(token);
+        }
+
+        writeInt(index);
+    }
+
+    private int stringIndex(String string) {
+        Integer index = strings.get(string);
+
+        if (index == null) {
+            index = stringPool.size();
+            strings.put(string, index);
+            stringPool.add(string);
+        }
+
+        return index;
+    }
+
+    private void writeValue(Object value) {
+        if (value == null) {
+            writeByte(Snapshot.NIL_VALUE);
+        } else if (value instanceof Boolean) {
+            writeByte((boolean) value ? Snapshot.TRUE_VALUE : Snapshot.FALSE_VALUE);
+        } else if (value instanceof Double) {
+            writeByte(Snapshot.NUMBER_VALUE);
+            ensure(8);
+            out.putDouble((double) value);
+        } else {
+            writeByte(Snapshot.STRING_VALUE);
+            writeInt(stringIndex((String) value));
+        }
+    }
+
+    private void writeByte(byte value) {
+        ensure(1);
+        out.put(value);
+    }
+
+    private void writeInt(int value) {
+        ensure(4);
+        out.putInt(value);
+    }
+
+    private void writeLong(long value) {
+        ensure(8);
+        out.putLong(value);
+    }
+
+    private void ensure(int bytes) {
+        if (out.remaining() >= bytes) {
+            return;
+        }
+
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + bytes));
+        grown.put(out.flip());
+        out = grown;
+    }
+}
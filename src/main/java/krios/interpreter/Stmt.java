@@ -21,6 +21,8 @@ abstract class Stmt {
         T visitWhileStmt(While stmt);
 
         T visitFunctionStmt(Function function);
+
+        T visitClassStmt(Class stmt);
     }
 
     static class Expression extends Stmt {
@@ -89,6 +91,7 @@ abstract class Stmt {
 
         private final Token name;
         private final Expr initializer;
+        private int slot = -1;
 
         Var(Token name, Expr initializer) {
             this.name = name;
@@ -108,11 +111,20 @@ abstract class Stmt {
             return initializer;
         }
 
+        public int getSlot() {
+            return slot;
+        }
+
+        void resolve(int slot) {
+            this.slot = slot;
+        }
+
     }
 
     static class Block extends Stmt {
 
         private final List<Stmt> statements;
+        private int slotCount;
 
         Block(List<Stmt> statements) {
             this.statements = statements;
@@ -127,6 +139,14 @@ abstract class Stmt {
             return statements;
         }
 
+        public int getSlotCount() {
+            return slotCount;
+        }
+
+        void setSlotCount(int slotCount) {
+            this.slotCount = slotCount;
+        }
+
     }
 
     static class If extends Stmt {
@@ -190,6 +210,11 @@ abstract class Stmt {
         private final Token name;
         private final List<Token> params;
         private final List<Stmt> body;
+        private int slot = -1;
+        private int slotCount;
+        // Symbols of the globals a pure function's results depend on, null
+        // for functions that aren't pure
+        private int[] globalReads;
 
         Function(Token name, List<Token> params, List<Stmt> body) {
             this.name = name;
@@ -213,5 +238,78 @@ abstract class Stmt {
         public List<Stmt> getBody() {
             return body;
         }
+
+        public int getSlot() {
+            return slot;
+        }
+
+        void resolve(int slot) {
+            this.slot = slot;
+        }
+
+        public int getSlotCount() {
+            return slotCount;
+        }
+
+        void setSlotCount(int slotCount) {
+            this.slotCount = slotCount;
+        }
+
+        public boolean isPure() {
+            return globalReads != null;
+        }
+
+        public int[] getGlobalReads() {
+            return globalReads;
+        }
+
+        void markPure(int[] globalReads) {
+            this.globalReads = globalReads;
+        }
+    }
+
+    static class Class extends Stmt {
+
+        private final Token name;
+        private final Expr.Variable superclass;
+        private final List<Function> methods;
+        private final Shape shape = new Shape();
+        private int slot = -1;
+
+        Class(Token name, Expr.Variable superclass, List<Function> methods) {
+            this.name = name;
+            this.superclass = superclass;
+            this.methods = methods;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitClassStmt(this);
+        }
+
+        public Token getName() {
+            return name;
+        }
+
+        public Expr.Variable getSuperclass() {
+            return superclass;
+        }
+
+        public List<Function> getMethods() {
+            return methods;
+        }
+
+        // Instances of every class created from this declaration start out with this shape
+        public Shape getShape() {
+            return shape;
+        }
+
+        public int getSlot() {
+            return slot;
+        }
+
+        void resolve(int slot) {
+            this.slot = slot;
+        }
     }
 }
@@ -0,0 +1,56 @@
+package krios.interpreter;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Gives every identifier a dense int id, so globals can live in arrays indexed by
+// symbol instead of hash maps keyed by name. A table is shared by the contexts an
+// engine creates and the scripts they compile, until the engine replaces it with a
+// fresh one so that generated identifiers don't pile up for the engine's lifetime.
+public class SymbolTable {
+
+    // The receiver and the superclass of a method are bound like local variables,
+    // under symbols no identifier can have
+    public static final int THIS = -2;
+    public static final int SUPER = -3;
+
+    private final Map<String, Integer> symbols = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[64];
+    private int size;
+
+    public int intern(String name) {
+        Integer symbol = symbols.get(name);
+
+        if (symbol != null) {
+            return symbol;
+        }
+
+        synchronized (this) {
+            symbol = symbols.get(name);
+
+            if (symbol != null) {
+                return symbol;
+            }
+
+            if (size == names.length) {
+                names = Arrays.copyOf(names, size * 2);
+            }
+
+            // Stored before the id is published, so whoever sees the id sees the name
+            names[size] = name;
+            symbols.put(name, size);
+
+            return size++;
+        }
+    }
+
+    public String name(int symbol) {
+        return names[symbol];
+    }
+
+    // Checked on every context creation, so it reads the map instead of taking the lock
+    public int size() {
+        return symbols.size();
+    }
+}
@@ -0,0 +1,24 @@
+package krios.interpreter;
+
+// What a return statement whose value is a call to a Lox function completes
+// with: the callee and its frame, already filled with the arguments. The
+// caller's frame is done with by then, so the trampoline in invoke runs the
+// callee in its place instead of nesting another call on the Java stack.
+final class TailCall {
+
+    private final LoxCallable function;
+    private final Environment frame;
+
+    TailCall(LoxCallable function, Environment frame) {
+        this.function = function;
+        this.frame = frame;
+    }
+
+    LoxCallable getFunction() {
+        return function;
+    }
+
+    Environment getFrame() {
+        return frame;
+    }
+}
@@ -3,20 +3,45 @@ package krios.interpreter;
 public class Token {
 
     private final TokenType type;
-    private final String lexeme;
+    private final CharSequence source;
+    private final int offset;
+    private final int length;
     private final Object literal;
     private final int line;
+    private final int symbol;
+    private String lexeme;
 
     public Token(TokenType type, String lexeme, Object literal, int line) {
-        this.type = type;
+        this(type, lexeme, 0, lexeme.length(), literal, -1, line);
+        this.lexeme = lexeme;
+    }
+
+    // Identifiers also carry the lexeme's id in the engine's SymbolTable
+    public Token(TokenType type, String lexeme, int symbol, int line) {
+        this(type, lexeme, 0, lexeme.length(), null, symbol, line);
         this.lexeme = lexeme;
+    }
+
+    // A token whose lexeme is only copied out of the source if someone asks for it.
+    // It keeps the source alive, so it is only meant for tokens that don't end up
+    // in a tree.
+    public Token(TokenType type, CharSequence source, int offset, int length, Object literal, int line) {
+        this(type, source, offset, length, literal, -1, line);
+    }
+
+    private Token(TokenType type, CharSequence source, int offset, int length, Object literal, int symbol, int line) {
+        this.type = type;
+        this.source = source;
+        this.offset = offset;
+        this.length = length;
         this.literal = literal;
         this.line = line;
+        this.symbol = symbol;
     }
 
     @Override
     public String toString() {
-        return "Token - type " + type + " lexeme " + lexeme + " literal " + literal;
+        return "Token - type " + type + " lexeme " + getLexeme() + " literal " + literal;
     }
 
     public TokenType getType() {
@@ -24,6 +49,9 @@ public class Token {
     }
 
     public String getLexeme() {
+        if (lexeme == null) {
+            lexeme = source.subSequence(offset, offset + length).toString();
+        }
         return lexeme;
     }
 
@@ -34,4 +62,8 @@ public class Token {
     public int getLine() {
         return line;
     }
+
+    public int getSymbol() {
+        return symbol;
+    }
 }
@@ -0,0 +1,8 @@
+package krios.interpreter;
+
+// Hands the parser one token at a time. Sources keep returning EOF once the
+// input runs out.
+public interface TokenSource {
+
+    Token nextToken();
+}
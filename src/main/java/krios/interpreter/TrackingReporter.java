@@ -0,0 +1,37 @@
+package krios.interpreter;
+
+class TrackingReporter implements ErrorReporter {
+
+    private final ErrorReporter delegate;
+    private boolean hasError;
+    private boolean hasRuntimeError;
+
+    TrackingReporter(ErrorReporter delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void error(int line, String message) {
+        hasError = true;
+        delegate.error(line, message);
+    }
+
+    @Override
+    public void runtimeError(RuntimeError error) {
+        hasRuntimeError = true;
+        delegate.runtimeError(error);
+    }
+
+    boolean hasError() {
+        return hasError;
+    }
+
+    boolean hasRuntimeError() {
+        return hasRuntimeError;
+    }
+
+    void reset() {
+        hasError = false;
+        hasRuntimeError = false;
+    }
+}
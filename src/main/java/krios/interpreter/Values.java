@@ -0,0 +1,64 @@
+package krios.interpreter;
+
+public final class Values {
+
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = 1023;
+    private static final Double[] CACHE = new Double[CACHE_HIGH - CACHE_LOW + 1];
+
+    static {
+        for (int i = 0; i < CACHE.length; i++) {
+            CACHE[i] = (double) (i + CACHE_LOW);
+        }
+    }
+
+    private Values() {
+    }
+
+    // Loop counters and small arithmetic results are mostly small integers,
+    // so they share boxes instead of allocating a new Double every time
+    public static Double box(double value) {
+        int integer = (int) value;
+
+        if (integer == value && integer >= CACHE_LOW && integer <= CACHE_HIGH
+                && (integer != 0 || Double.doubleToRawLongBits(value) == 0L)) {
+            return CACHE[integer - CACHE_LOW];
+        }
+
+        return value;
+    }
+
+    public static String stringify(Object object) {
+        if (object == null) {
+            return "nil";
+        }
+        if (object instanceof Double) {
+            String text = object.toString();
+            if (text.endsWith(".0")) {
+                text = text.substring(0, text.length() - 2);
+            }
+            return text;
+        }
+        return object.toString();
+    }
+
+    public static boolean isEqual(Object a, Object b) {
+        if (a == null && b == null) {
+            return true;
+        }
+        if (a == null) {
+            return false;
+        }
+        return a.equals(b);
+    }
+
+    public static boolean isTruthy(Object object) {
+        if (object == null) {
+            return false;
+        }
+        if (object instanceof Boolean) {
+            return (boolean) object;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,467 @@
+package krios.interpreter;
+
+import java.util.Arrays;
+
+public class VirtualMachine {
+
+    // The value and frame stacks start small and grow as calls nest, up to
+    // maxCallDepth frames, past which a call fails with "Stack overflow"
+    private static final int INITIAL_STACK_SIZE = 256;
+    private static final int INITIAL_FRAMES = 64;
+
+    private static final Object UNDEFINED = new Object();
+
+    private final SymbolTable symbols;
+    private final ErrorReporter reporter;
+    private Object[] globals = new Object[0];
+    private final int maxCallDepth;
+    private Object[] stack = new Object[INITIAL_STACK_SIZE];
+    private CallFrame[] frames = new CallFrame[INITIAL_FRAMES];
+    private int stackTop = 0;
+    private int frameCount = 0;
+    private VmUpvalue openUpvalues;
+
+    public VirtualMachine(SymbolTable symbols, ErrorReporter reporter) {
+        this(symbols, reporter, LoxEngine.DEFAULT_MAX_CALL_DEPTH);
+    }
+
+    public VirtualMachine(SymbolTable symbols, ErrorReporter reporter, int maxCallDepth) {
+        this.symbols = symbols;
+        this.reporter = reporter;
+        this.maxCallDepth = maxCallDepth;
+
+        for (NativeFunction function : NativeFunction.standardLibrary()) {
+            defineGlobal(symbols.intern(function.getName()), function);
+        }
+    }
+
+    public void interpret(VmFunction script) {
+        try {
+            VmClosure closure = new VmClosure(script);
+            push(closure);
+            pushFrame(closure, 0);
+            run();
+        }
+        catch (RuntimeError error) {
+            reporter.runtimeError(error);
+        }
+        finally {
+            resetStack();
+        }
+    }
+
+    private void run() {
+        CallFrame frame = frames[frameCount - 1];
+        Chunk chunk = frame.closure.getFunction().getChunk();
+        byte[] code = chunk.getCode();
+        int base = frame.base;
+        int ip = frame.ip;
+
+        for (; ; ) {
+            byte instruction = code[ip++];
+
+            switch (instruction) {
+                case OpCode.CONSTANT -> {
+                    push(chunk.getConstant(readShort(code, ip)));
+                    ip += 2;
+                }
+                case OpCode.NIL -> push(null);
+                case OpCode.TRUE -> push(true);
+                case OpCode.FALSE -> push(false);
+                case OpCode.POP -> stackTop--;
+
+                case OpCode.GET_LOCAL -> push(stack[base + (code[ip++] & 0xff)]);
+                case OpCode.SET_LOCAL -> stack[base + (code[ip++] & 0xff)] = peek(0);
+                case OpCode.GET_GLOBAL -> {
+                    int symbol = readShort(code, ip);
+                    ip += 2;
+
+                    checkDefined(chunk, ip, symbol);
+                    push(globals[symbol]);
+                }
+                case OpCode.DEFINE_GLOBAL -> {
+                    int symbol = readShort(code, ip);
+                    ip += 2;
+
+                    defineGlobal(symbol, pop());
+                }
+                case OpCode.SET_GLOBAL -> {
+                    int symbol = readShort(code, ip);
+                    ip += 2;
+
+                    checkDefined(chunk, ip, symbol);
+                    globals[symbol] = peek(0);
+                }
+                case OpCode.GET_UPVALUE -> push(frame.closure.getUpvalues()[code[ip++] & 0xff].get(stack));
+                case OpCode.SET_UPVALUE -> frame.closure.getUpvalues()[code[ip++] & 0xff].set(stack, peek(0));
+
+                case OpCode.EQUAL -> {
+                    Object right = pop();
+                    push(Values.isEqual(pop(), right));
+                }
+                case OpCode.NOT_EQUAL -> {
+                    Object right = pop();
+                    push(!Values.isEqual(pop(), right));
+                }
+                case OpCode.GREATER -> {
+                    checkNumberOperands(chunk, ip);
+                    double right = (double) pop();
+                    push((double) pop() > right);
+                }
+                case OpCode.GREATER_EQUAL -> {
+                    checkNumberOperands(chunk, ip);
+                    double right = (double) pop();
+                    push((double) pop() >= right);
+                }
+                case OpCode.LESS -> {
+                    checkNumberOperands(chunk, ip);
+                    double right = (double) pop();
+                    push((double) pop() < right);
+                }
+                case OpCode.LESS_EQUAL -> {
+                    checkNumberOperands(chunk, ip);
+                    double right = (double) pop();
+                    push((double) pop() <= right);
+                }
+
+                case OpCode.ADD -> {
+                    Object right = pop();
+                    Object left = pop();
+
+                    if (left instanceof Double && right instanceof Double) {
+                        push((double) left + (double) right);
+                    } else if (left instanceof String && right instanceof String) {
+                        push((String) left + (String) right);
+                    } else {
+                        throw error(chunk, ip, "Operands must be numbers or strings");
+                    }
+                }
+                case OpCode.SUBTRACT -> {
+                    checkNumberOperands(chunk, ip);
+                    double right = (double) pop();
+                    push((double) pop() - right);
+                }
+                case OpCode.MULTIPLY -> {
+                    checkNumberOperands(chunk, ip);
+                    double right = (double) pop();
+                    push((double) pop() * right);
+                }
+                case OpCode.DIVIDE -> {
+                    checkNumberOperands(chunk, ip);
+                    double right = (double) pop();
+                    push((double) pop() / right);
+                }
+                case OpCode.NOT -> push(!Values.isTruthy(pop()));
+                case OpCode.NEGATE -> {
+                    if (!(peek(0) instanceof Double)) {
+                        throw error(chunk, ip, "Operand must be a number");
+                    }
+                    push(-(double) pop());
+                }
+
+                case OpCode.PRINT -> System.out.println(Values.stringify(pop()));
+                case OpCode.JUMP -> ip += readShort(code, ip) + 2;
+                case OpCode.JUMP_IF_FALSE -> {
+                    if (Values.isTruthy(peek(0))) {
+                        ip += 2;
+                    } else {
+                        ip += readShort(code, ip) + 2;
+                    }
+                }
+                case OpCode.LOOP -> {
+                    ScriptInterruptedException.check();
+                    ip -= readShort(code, ip) - 2;
+                }
+
+                case OpCode.CALL -> {
+                    int argumentCount = code[ip++] & 0xff;
+                    Object callee = peek(argumentCount);
+                    VmClosure closure;
+
+                    if (callee instanceof VmClosure function) {
+                        closure = function;
+                    } else if (callee instanceof VmBoundMethod method) {
+                        stack[stackTop - argumentCount - 1] = method.getReceiver();
+                        closure = method.getMethod();
+                    } else if (callee instanceof LoxClass loxClass) {
+                        stack[stackTop - argumentCount - 1] = new LoxInstance(loxClass);
+
+                        if (!(loxClass.getInitializer() instanceof VmClosure initializer)) {
+                            checkArity(chunk, ip, 0, argumentCount);
+                            continue;
+                        }
+                        closure = initializer;
+                    } else if (callee instanceof NativeFunction function) {
+                        checkArity(chunk, ip, function.arity(), argumentCount);
+
+                        Object result = function.call(argumentCount == 0
+                                ? LoxCallable.NO_ARGUMENTS
+                                : Arrays.copyOfRange(stack, stackTop - argumentCount, stackTop)
+                        );
+                        stackTop -= argumentCount + 1;
+                        push(result);
+                        continue;
+                    } else {
+                        throw error(chunk, ip, "Can only call functions and classes");
+                    }
+
+                    ScriptInterruptedException.check();
+                    checkArity(chunk, ip, closure.getFunction().getArity(), argumentCount);
+                    if (frameCount == maxCallDepth) {
+                        throw error(chunk, ip, "Stack overflow");
+                    }
+
+                    frame.ip = ip;
+                    frame = pushFrame(closure, stackTop - argumentCount - 1);
+                    chunk = closure.getFunction().getChunk();
+                    code = chunk.getCode();
+                    base = frame.base;
+                    ip = 0;
+                }
+                case OpCode.CLOSURE -> {
+                    VmFunction function = (VmFunction) chunk.getConstant(readShort(code, ip));
+                    ip += 2;
+
+                    VmClosure closure = new VmClosure(function);
+                    VmUpvalue[] upvalues = closure.getUpvalues();
+
+                    for (int i = 0; i < upvalues.length; i++) {
+                        boolean isLocal = code[ip++] == 1;
+                        int index = code[ip++] & 0xff;
+
+                        if (isLocal) {
+                            upvalues[i] = captureUpvalue(base + index);
+                        } else {
+                            upvalues[i] = frame.closure.getUpvalues()[index];
+                        }
+                    }
+
+                    push(closure);
+                }
+                case OpCode.CLOSE_UPVALUE -> {
+                    closeUpvalues(stackTop - 1);
+                    stackTop--;
+                }
+                case OpCode.RETURN -> {
+                    Object result = pop();
+                    closeUpvalues(base);
+                    frameCount--;
+
+                    if (frameCount == 0) {
+                        stackTop = 0;
+                        return;
+                    }
+
+                    stackTop = base;
+                    push(result);
+
+                    frame = frames[frameCount - 1];
+                    chunk = frame.closure.getFunction().getChunk();
+                    code = chunk.getCode();
+                    base = frame.base;
+                    ip = frame.ip;
+                }
+
+                case OpCode.CLASS -> {
+                    String name = (String) chunk.getConstant(readShort(code, ip));
+                    Shape shape = (Shape) chunk.getConstant(readShort(code, ip + 2));
+                    ip += 4;
+
+                    push(new LoxClass(name, shape));
+                }
+                case OpCode.INHERIT -> {
+                    if (!(peek(1) instanceof LoxClass superclass)) {
+                        throw error(chunk, ip, "Superclass must be a class");
+                    }
+
+                    ((LoxClass) pop()).inherit(superclass);
+                }
+                case OpCode.METHOD -> {
+                    int symbol = readShort(code, ip);
+                    boolean isInitializer = code[ip + 2] == 1;
+                    ip += 3;
+
+                    Object method = pop();
+                    ((LoxClass) peek(0)).defineMethod(symbol, method, isInitializer);
+                }
+                case OpCode.GET_PROPERTY -> {
+                    int symbol = readShort(code, ip);
+                    InlineCache cache = chunk.getCache(readShort(code, ip + 2));
+                    ip += 4;
+
+                    if (!(peek(0) instanceof LoxInstance instance)) {
+                        throw error(chunk, ip, "Only instances have properties");
+                    }
+
+                    int index = cache.fieldIndex(instance.getShape(), symbol);
+                    stack[stackTop - 1] = index >= 0
+                            ? instance.getField(index)
+                            : bindMethod(chunk, ip, instance.getLoxClass(), instance, symbol);
+                }
+                case OpCode.SET_PROPERTY -> {
+                    int symbol = readShort(code, ip);
+                    InlineCache cache = chunk.getCache(readShort(code, ip + 2));
+                    ip += 4;
+
+                    if (!(peek(1) instanceof LoxInstance instance)) {
+                        throw error(chunk, ip, "Only instances have fields");
+                    }
+
+                    Object value = pop();
+                    cache.store(instance, symbol, value);
+                    stack[stackTop - 1] = value;
+                }
+                case OpCode.GET_SUPER -> {
+                    int symbol = readShort(code, ip);
+                    ip += 2;
+
+                    LoxClass superclass = (LoxClass) pop();
+                    LoxInstance instance = (LoxInstance) pop();
+                    push(bindMethod(chunk, ip, superclass, instance, symbol));
+                }
+                default -> throw error(chunk, ip, "Unknown opcode " + instruction);
+            }
+        }
+    }
+
+    private CallFrame pushFrame(VmClosure closure, int base) {
+        if (frameCount == frames.length) {
+            frames = Arrays.copyOf(frames, Math.min(frames.length * 2, maxCallDepth));
+        }
+
+        CallFrame frame = frames[frameCount];
+
+        if (frame == null) {
+            frame = new CallFrame();
+            frames[frameCount] = frame;
+        }
+
+        frame.closure = closure;
+        frame.base = base;
+        frame.ip = 0;
+        frameCount++;
+
+        return frame;
+    }
+
+    private VmBoundMethod bindMethod(Chunk chunk, int ip, LoxClass loxClass, LoxInstance instance, int symbol) {
+        if (loxClass.findMethod(symbol) instanceof VmClosure method) {
+            return new VmBoundMethod(instance, method);
+        }
+        throw error(chunk, ip, "Undefined property '" + symbols.name(symbol) + "'");
+    }
+
+    private VmUpvalue captureUpvalue(int index) {
+        VmUpvalue previous = null;
+        VmUpvalue upvalue = openUpvalues;
+
+        while (upvalue != null && upvalue.getIndex() > index) {
+            previous = upvalue;
+            upvalue = upvalue.getNext();
+        }
+
+        if (upvalue != null && upvalue.getIndex() == index) {
+            return upvalue;
+        }
+
+        VmUpvalue created = new VmUpvalue(index, upvalue);
+
+        if (previous == null) {
+            openUpvalues = created;
+        } else {
+            previous.setNext(created);
+        }
+
+        return created;
+    }
+
+    private void closeUpvalues(int last) {
+        while (openUpvalues != null && openUpvalues.getIndex() >= last) {
+            openUpvalues.close(stack);
+            openUpvalues = openUpvalues.getNext();
+        }
+    }
+
+    private void defineGlobal(int symbol, Object value) {
+        if (symbol >= globals.length) {
+            int length = globals.length;
+            globals = Arrays.copyOf(globals, Math.max(symbol + 1, globals.length * 2));
+            Arrays.fill(globals, length, globals.length, UNDEFINED);
+        }
+
+        globals[symbol] = value;
+    }
+
+    private void checkDefined(Chunk chunk, int ip, int symbol) {
+        if (symbol < globals.length && globals[symbol] != UNDEFINED) {
+            return;
+        }
+        throw error(chunk, ip, "Undefined variable '" + symbols.name(symbol) + "'");
+    }
+
+    private void checkNumberOperands(Chunk chunk, int ip) {
+        if (peek(0) instanceof Double && peek(1) instanceof Double) {
+            return;
+        }
+        throw error(chunk, ip, "Operands must be numbers");
+    }
+
+    private void checkArity(Chunk chunk, int ip, int arity, int argumentCount) {
+        if (arity != argumentCount) {
+            throw error(chunk, ip, "Expected " + arity + " arguments, but got " + argumentCount);
+        }
+    }
+
+    private RuntimeError error(Chunk chunk, int ip, String message) {
+        return new RuntimeError(chunk.getLine(ip - 1), message);
+    }
+
+    // A context lives on after a deeply recursive run, so stacks grown by one
+    // are given back rather than kept for the next
+    // Popped values and finished frames stay in the arrays past stackTop and
+    // frameCount, so everything is cleared for them not to outlive the run
+    private void resetStack() {
+        if (stack.length > INITIAL_STACK_SIZE || frames.length > INITIAL_FRAMES) {
+            stack = new Object[INITIAL_STACK_SIZE];
+            frames = new CallFrame[INITIAL_FRAMES];
+        } else {
+            Arrays.fill(stack, null);
+
+            // Frames are created in order and then reused, so the used ones come first
+            for (int i = 0; i < frames.length && frames[i] != null; i++) {
+                frames[i].closure = null;
+            }
+        }
+
+        stackTop = 0;
+        frameCount = 0;
+        openUpvalues = null;
+    }
+
+    private int readShort(byte[] code, int ip) {
+        return ((code[ip] & 0xff) << 8) | (code[ip + 1] & 0xff);
+    }
+
+    private void push(Object value) {
+        if (stackTop == stack.length) {
+            stack = Arrays.copyOf(stack, stack.length * 2);
+        }
+
+        stack[stackTop++] = value;
+    }
+
+    private Object pop() {
+        return stack[--stackTop];
+    }
+
+    private Object peek(int distance) {
+        return stack[stackTop - 1 - distance];
+    }
+
+    private static class CallFrame {
+
+        private VmClosure closure;
+        private int ip;
+        private int base;
+    }
+}
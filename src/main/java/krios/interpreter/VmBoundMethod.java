@@ -0,0 +1,25 @@
+package krios.interpreter;
+
+public class VmBoundMethod {
+
+    private final LoxInstance receiver;
+    private final VmClosure method;
+
+    public VmBoundMethod(LoxInstance receiver, VmClosure method) {
+        this.receiver = receiver;
+        this.method = method;
+    }
+
+    public LoxInstance getReceiver() {
+        return receiver;
+    }
+
+    public VmClosure getMethod() {
+        return method;
+    }
+
+    @Override
+    public String toString() {
+        return method.toString();
+    }
+}
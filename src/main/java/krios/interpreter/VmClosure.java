@@ -0,0 +1,25 @@
+package krios.interpreter;
+
+public class VmClosure {
+
+    private final VmFunction function;
+    private final VmUpvalue[] upvalues;
+
+    public VmClosure(VmFunction function) {
+        this.function = function;
+        this.upvalues = new VmUpvalue[function.getUpvalueCount()];
+    }
+
+    public VmFunction getFunction() {
+        return function;
+    }
+
+    public VmUpvalue[] getUpvalues() {
+        return upvalues;
+    }
+
+    @Override
+    public String toString() {
+        return function.toString();
+    }
+}
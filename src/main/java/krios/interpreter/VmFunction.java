@@ -0,0 +1,45 @@
+package krios.interpreter;
+
+public class VmFunction {
+
+    private final String name;
+    private final Chunk chunk = new Chunk();
+    private int arity;
+    private int upvalueCount;
+
+    public VmFunction(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Chunk getChunk() {
+        return chunk;
+    }
+
+    public int getArity() {
+        return arity;
+    }
+
+    void setArity(int arity) {
+        this.arity = arity;
+    }
+
+    public int getUpvalueCount() {
+        return upvalueCount;
+    }
+
+    void setUpvalueCount(int upvalueCount) {
+        this.upvalueCount = upvalueCount;
+    }
+
+    @Override
+    public String toString() {
+        if (name == null) {
+            return "<script>";
+        }
+        return "<fn " + name + ">";
+    }
+}
@@ -0,0 +1,43 @@
+package krios.interpreter;
+
+public class VmUpvalue {
+
+    private final int index;
+    private boolean open = true;
+    private Object closed;
+    private VmUpvalue next;
+
+    public VmUpvalue(int index, VmUpvalue next) {
+        this.index = index;
+        this.next = next;
+    }
+
+    public Object get(Object[] stack) {
+        return open ? stack[index] : closed;
+    }
+
+    public void set(Object[] stack, Object value) {
+        if (open) {
+            stack[index] = value;
+        } else {
+            closed = value;
+        }
+    }
+
+    public void close(Object[] stack) {
+        closed = stack[index];
+        open = false;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public VmUpvalue getNext() {
+        return next;
+    }
+
+    void setNext(VmUpvalue next) {
+        this.next = next;
+    }
+}